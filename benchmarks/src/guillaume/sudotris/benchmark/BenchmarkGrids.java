@@ -0,0 +1,64 @@
+package guillaume.sudotris.benchmark;
+
+import guillaume.sudotris.fileio.GridParser;
+import guillaume.sudotris.metier.grid.Grid;
+
+import java.nio.file.Paths;
+
+/**
+ * Grilles utilisées par les benchmarks : grilles des ressources du jeu, et grilles connues pour être
+ * les pires cas des algorithmes de backtracking.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @since 1.8
+ */
+final class BenchmarkGrids {
+    /**
+     * Grille "anti-backtracking" : la première ligne de la solution est 987654321,
+     * ce qui force un parcours dans l'ordre des cases à explorer un maximum de branches.
+     */
+    static final String ANTI_BACKTRACKING =
+            "..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9";
+    /**
+     * Grille à 17 indices, parmi les plus longues à résoudre pour un backtracking naïf.
+     */
+    static final String MINIMAL_17 =
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+    /**
+     * "Platinum Blonde", réputée parmi les plus difficiles à résoudre humainement.
+     */
+    static final String PLATINUM_BLONDE =
+            ".......12........3..23..4....1....5..7..6.....4...1.8....2..6..7..5.8.....4.3....";
+
+    private BenchmarkGrids() {
+    }
+
+    /**
+     * Renvoie les cases de la grille nommée : chemin d'une grille des ressources (relatif au dossier
+     * <code>resources</code>, sans extension), ou nom d'une grille de pire cas.
+     *
+     * @param name le nom de la grille
+     * @return les cases de la grille
+     */
+    static byte[] load(String name) {
+        final String line;
+        switch (name) {
+            case "ANTI_BACKTRACKING":
+                line = ANTI_BACKTRACKING;
+                break;
+            case "MINIMAL_17":
+                line = MINIMAL_17;
+                break;
+            case "PLATINUM_BLONDE":
+                line = PLATINUM_BLONDE;
+                break;
+            default:
+                return GridParser.parseFileToCells(Paths.get("resources", name + ".txt"));
+        }
+
+        final byte[] cells = new byte[Grid.SIZE];
+        GridParser.parseLine(line, cells);
+        return cells;
+    }
+}
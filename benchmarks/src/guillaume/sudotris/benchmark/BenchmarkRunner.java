@@ -0,0 +1,33 @@
+package guillaume.sudotris.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lance les benchmarks, avec le profileur GC pour mesurer le taux d'allocation. <br>
+ * À lancer depuis la racine du projet (les grilles sont lues dans <code>resources</code>). Un premier argument
+ * optionnel restreint les benchmarks lancés (expression régulière JMH, par exemple <code>SolverBenchmark</code>).
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @since 1.8
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Lance les benchmarks.
+     *
+     * @param args filtre optionnel des benchmarks à lancer
+     * @throws RunnerException en cas d'échec d'un benchmark
+     */
+    public static void main(String[] args) throws RunnerException {
+        final Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,155 @@
+package guillaume.sudotris.benchmark;
+
+import guillaume.sudotris.metier.Difficulte;
+import guillaume.sudotris.metier.Sudotris;
+import guillaume.sudotris.metier.element.Element;
+import guillaume.sudotris.metier.grid.GridParsed;
+import guillaume.sudotris.metier.grid.GridSolved;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la boucle de jeu : placement d'éléments et tirage du nombre à placer.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @since 1.8
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBenchmark {
+    /**
+     * Nombre d'appels de placeAllElements par itération, et de parties préparées pour chacune.
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Partie neuve, avec la liste des coups corrects et d'un coup incorrect.
+     */
+    static final class Game {
+        final Sudotris sudotris = new Sudotris();
+        final List<Element> correctMoves = new ArrayList<>();
+        Element wrongMove;
+
+        Game() {
+            sudotris.init(Difficulte.EASY);
+
+            final GridSolved solution = new GridSolved();
+            final byte[] cells = new byte[81];
+            final Element[][] matrix = sudotris.getDrawableGrid();
+            for (byte line = 0; line < 9; line++) {
+                for (byte column = 0; column < 9; column++) {
+                    cells[line * 9 + column] = (byte) matrix[line][column].getNumber();
+                }
+            }
+            solution.initFromCells(cells);
+
+            for (byte line = 0; line < 9; line++) {
+                for (byte column = 0; column < 9; column++) {
+                    if (matrix[line][column].isEmpty()) {
+                        final int number = solution.getNumber(line, column);
+                        correctMoves.add(Element.of(line, column, number));
+                        if (wrongMove == null) {
+                            wrongMove = Element.of(line, column, number % 9 + 1);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Lot de parties neuves préparé avant chaque itération, hors mesure : chaque appel en consomme une.
+     */
+    @State(Scope.Thread)
+    public static class Games {
+        private final Game[] games = new Game[BATCH_SIZE];
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                games[i] = new Game();
+            }
+            next = 0;
+        }
+
+        Game next() {
+            return games[next++];
+        }
+    }
+
+    /**
+     * Partie préparée une fois : un coup refusé ne modifie pas la grille, la même partie sert à chaque appel.
+     */
+    @State(Scope.Thread)
+    public static class Rejecting {
+        Game game;
+
+        @Setup
+        public void setUp() {
+            game = new Game();
+        }
+    }
+
+    /**
+     * Grille partielle chargée une fois par essai (fork) : getPlaceableNumber ne la modifie pas.
+     */
+    @State(Scope.Thread)
+    public static class Parsed {
+        GridParsed gridParsed;
+
+        @Setup
+        public void setUp() {
+            gridParsed = new GridParsed();
+            gridParsed.initFromFile(Paths.get("resources", "easy", "grid1.txt"));
+        }
+    }
+
+    /**
+     * Partie complète sur une grille neuve : chaque itération mesure <code>BATCH_SIZE</code> parties, sans la
+     * préparation des parties (score par lot).
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = BATCH_SIZE)
+    @Measurement(iterations = 20, batchSize = BATCH_SIZE)
+    public int placeAllElements(Games games) {
+        final Game game = games.next();
+        int placed = 0;
+        for (Element element : game.correctMoves) {
+            if (game.sudotris.placeElement(element)) {
+                placed++;
+            }
+        }
+        return placed;
+    }
+
+    @Benchmark
+    public boolean placeWrongElement(Rejecting rejecting) {
+        return rejecting.game.sudotris.placeElement(rejecting.game.wrongMove);
+    }
+
+    @Benchmark
+    public int getPlaceableNumber(Parsed parsed) {
+        return parsed.gridParsed.getPlaceableNumber();
+    }
+}
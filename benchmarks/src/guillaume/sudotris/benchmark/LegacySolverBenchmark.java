@@ -0,0 +1,106 @@
+package guillaume.sudotris.benchmark;
+
+import guillaume.sudotris.metier.element.Element;
+import guillaume.sudotris.resources.SudokuSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark du résolveur historique SudokuSolver, servant de référence. <br>
+ * Sur les grilles de pire cas, une seule résolution prend jusqu'à plusieurs secondes : elles sont mesurées à part,
+ * une résolution par itération.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SolverBenchmark
+ * @since 1.8
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LegacySolverBenchmark {
+    /**
+     * Matrice d'une grille des ressources, recréée avant chaque appel : SudokuSolver résout sa matrice en place.
+     */
+    @State(Scope.Thread)
+    public static class ResourceGrid {
+        @Param({"easy/grid1", "easy/grid2", "easy/grid3", "hard/grid1"})
+        public String grid;
+
+        private byte[] puzzle;
+        private Element[][] matrix;
+
+        @Setup
+        public void setUp() {
+            puzzle = BenchmarkGrids.load(grid);
+            matrix = new Element[9][9];
+        }
+
+        @Setup(Level.Invocation)
+        public void resetMatrix() {
+            fill(matrix, puzzle);
+        }
+    }
+
+    /**
+     * Matrice d'une grille de pire cas, recréée avant chaque itération (une seule résolution par itération).
+     */
+    @State(Scope.Thread)
+    public static class WorstCaseGrid {
+        @Param({"ANTI_BACKTRACKING", "MINIMAL_17", "PLATINUM_BLONDE"})
+        public String grid;
+
+        private byte[] puzzle;
+        private Element[][] matrix;
+
+        @Setup
+        public void setUp() {
+            puzzle = BenchmarkGrids.load(grid);
+            matrix = new Element[9][9];
+        }
+
+        @Setup(Level.Iteration)
+        public void resetMatrix() {
+            fill(matrix, puzzle);
+        }
+    }
+
+    @Benchmark
+    public boolean solveGrid(ResourceGrid state) {
+        return new SudokuSolver(state.matrix).solveGrid();
+    }
+
+    /**
+     * Résolution d'une grille de pire cas : temps d'une résolution unique.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public boolean solveWorstCase(WorstCaseGrid state) {
+        return new SudokuSolver(state.matrix).solveGrid();
+    }
+
+    private static void fill(Element[][] matrix, byte[] puzzle) {
+        for (byte line = 0; line < 9; line++) {
+            for (byte column = 0; column < 9; column++) {
+                matrix[line][column] = Element.of(line, column, puzzle[line * 9 + column]);
+            }
+        }
+    }
+}
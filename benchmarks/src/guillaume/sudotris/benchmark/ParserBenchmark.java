@@ -0,0 +1,58 @@
+package guillaume.sudotris.benchmark;
+
+import guillaume.sudotris.fileio.GridParser;
+import guillaume.sudotris.metier.element.Element;
+import guillaume.sudotris.metier.grid.GridParsed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la lecture des fichiers de grilles.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @since 1.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"easy/grid1", "hard/grid1"})
+    public String grid;
+
+    private Path path;
+    private GridParsed gridParsed;
+
+    @Setup
+    public void setUp() {
+        path = Paths.get("resources", grid + ".txt");
+        gridParsed = new GridParsed();
+    }
+
+    @Benchmark
+    public Element[][] parseFileToMatrix() {
+        return GridParser.parseFileToMatrix(path);
+    }
+
+    @Benchmark
+    public GridParsed initFromFile() {
+        gridParsed.initFromFile(path);
+        return gridParsed;
+    }
+}
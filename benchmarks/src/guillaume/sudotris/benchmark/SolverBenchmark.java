@@ -0,0 +1,73 @@
+package guillaume.sudotris.benchmark;
+
+import guillaume.sudotris.resources.BitmaskSolver;
+import guillaume.sudotris.resources.BitsetSolver;
+import guillaume.sudotris.resources.DancingLinksSolver;
+import guillaume.sudotris.resources.ParallelSolver;
+import guillaume.sudotris.resources.Solver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks des moteurs de résolution, sur les grilles des ressources et sur les grilles de pire cas.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see BenchmarkGrids
+ * @since 1.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    @Param({"DANCING_LINKS", "BITMASK", "BITSET", "PARALLEL"})
+    public String engine;
+
+    @Param({"easy/grid1", "easy/grid2", "easy/grid3", "hard/grid1", "ANTI_BACKTRACKING", "MINIMAL_17", "PLATINUM_BLONDE"})
+    public String grid;
+
+    private Solver solver;
+    private byte[] puzzle;
+    private byte[] cells;
+
+    @Setup
+    public void setUp() {
+        switch (engine) {
+            case "BITMASK":
+                solver = new BitmaskSolver();
+                break;
+            case "BITSET":
+                solver = new BitsetSolver(3);
+                break;
+            case "PARALLEL":
+                solver = new ParallelSolver();
+                break;
+            default:
+                solver = new DancingLinksSolver();
+                break;
+        }
+        puzzle = BenchmarkGrids.load(grid);
+        cells = new byte[puzzle.length];
+    }
+
+    @Benchmark
+    public byte[] solveGrid() {
+        System.arraycopy(puzzle, 0, cells, 0, puzzle.length);
+        solver.solve(cells);
+        return cells;
+    }
+}
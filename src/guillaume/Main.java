@@ -1,7 +1,24 @@
 package guillaume;
 
+import guillaume.sudotris.fileio.GridParser;
+import guillaume.sudotris.fileio.PuzzleFileReader;
+import guillaume.sudotris.metier.Difficulte;
+import guillaume.sudotris.metier.grid.Grid;
+import guillaume.sudotris.metier.grid.GridSolved;
+import guillaume.sudotris.resources.BatchSolver;
+import guillaume.sudotris.resources.DifficultyGrader;
+import guillaume.sudotris.resources.GridGeometry;
+import guillaume.sudotris.server.SudotrisServer;
+import guillaume.sudotris.simulation.LoadGenerator;
+import guillaume.sudotris.simulation.PlayerStrategy;
 import guillaume.sudotris.view.SudotrisIHM;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Main class of the project.
  *
@@ -12,12 +29,117 @@ import guillaume.sudotris.view.SudotrisIHM;
 public class Main {
 
     /**
-     * Launch this.
+     * Launch this. <br>
+     * <code>batch [--unique] &lt;input&gt; &lt;output&gt;</code> solves every grid of the input file instead of starting
+     * a game; <code>--unique</code> also checks that every grid has a single solution. <br>
+     * <code>grade &lt;input&gt;</code> grades every grid of the input file and prints how many fall into each difficulty.
+     * <br>
+     * <code>solve &lt;file&gt;</code> solves a single grid of any supported size (9x9, 16x16, 25x25) and prints it.
+     * <br>
+     * <code>server [port] [journal-dir]</code> serves games over TCP on the loopback interface instead (see
+     * SudotrisServer); with a journal directory, games survive a restart (see MoveJournal). <br>
+     * <code>simulate [strategy] [threads] [seconds] [difficulty]</code> plays games headlessly with simulated players
+     * (random, greedy_correct, error_prone) and prints throughput and move latencies (see LoadGenerator).
      *
      * @param args command-line arguments
+     * @throws IOException          if the batch files cannot be read or written, or the server port cannot be opened
+     * @throws InterruptedException if interrupted while serving or simulating games
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length >= 3 && "batch".equals(args[0])) {
+            final boolean unique = "--unique".equals(args[1]);
+            final int first = unique ? 2 : 1;
+            final BatchSolver.Report report = new BatchSolver(unique)
+                    .solve(Paths.get(args[first]), Paths.get(args[first + 1]));
+            System.out.println(report);
+            return;
+        }
+        if (args.length >= 2 && "grade".equals(args[0])) {
+            grade(Paths.get(args[1]));
+            return;
+        }
+        if (args.length >= 2 && "solve".equals(args[0])) {
+            solve(Paths.get(args[1]));
+            return;
+        }
+        if (args.length >= 1 && "server".equals(args[0])) {
+            final int port = args.length >= 2 ? Integer.parseInt(args[1]) : SudotrisServer.DEFAULT_PORT;
+            final Path journal = args.length >= 3 ? Paths.get(args[2]) : null;
+            final SudotrisServer server = new SudotrisServer(port, SudotrisServer.DEFAULT_IDLE_TIMEOUT, journal);
+            System.out.println("Sudotris server listening on port " + server.getPort());
+            server.awaitTermination();
+            return;
+        }
+        if (args.length >= 1 && "simulate".equals(args[0])) {
+            final PlayerStrategy strategy = args.length >= 2
+                    ? PlayerStrategy.valueOf(args[1].toUpperCase(Locale.ROOT)) : PlayerStrategy.ERROR_PRONE;
+            final int threads = args.length >= 3
+                    ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            final long seconds = args.length >= 4 ? Long.parseLong(args[3]) : 10;
+            final Difficulte difficulte = args.length >= 5
+                    ? Difficulte.valueOf(args[4].toUpperCase(Locale.ROOT)) : Difficulte.MEDIUM;
+            System.out.println(new LoadGenerator(strategy, difficulte, threads).run(seconds, TimeUnit.SECONDS));
+            return;
+        }
+
         final SudotrisIHM game = new SudotrisIHM();
         game.start();
     }
-}
\ No newline at end of file
+
+    /**
+     * Solves the grid of the given file, whatever its size, and prints the solution with the search statistics.
+     *
+     * @param input the grid file
+     * @see GridParser#parseFileToCells(Path)
+     */
+    private static void solve(Path input) {
+        final byte[] cells = GridParser.parseFileToCells(input);
+        final GridSolved grid = new GridSolved(GridGeometry.ofSize(cells.length).order, null);
+        grid.initFromCells(cells);
+        if (!grid.isSolved()) {
+            System.out.println("No solution");
+            return;
+        }
+
+        final byte[] solution = grid.getCells();
+        final int side = grid.getSide();
+        final StringBuilder out = new StringBuilder();
+        for (int position = 0; position < solution.length; position++) {
+            out.append(String.format(side > 9 ? "%3d" : "%2d", solution[position]));
+            if (position % side == side - 1) {
+                out.append(System.lineSeparator());
+            }
+        }
+        System.out.print(out);
+        System.out.println(grid.getSolver().getStatistics());
+    }
+
+    /**
+     * Grades every grid of the given file, and prints the number of grids per difficulty.
+     *
+     * @param input the grids, one per line
+     * @throws IOException if the file cannot be read
+     */
+    private static void grade(Path input) throws IOException {
+        final DifficultyGrader grader = new DifficultyGrader();
+        final int[] counts = new int[Difficulte.values().length];
+        final byte[] cells = new byte[Grid.SIZE];
+        int nbGrids = 0;
+
+        final long start = System.nanoTime();
+        try (PuzzleFileReader reader = new PuzzleFileReader(input)) {
+            while (reader.next(cells)) {
+                if (reader.isValid()) {
+                    counts[grader.grade(cells).getDifficulte().ordinal()]++;
+                    nbGrids++;
+                }
+            }
+        }
+        final long nanos = System.nanoTime() - start;
+
+        for (Difficulte difficulte : Difficulte.values()) {
+            System.out.println(difficulte + " : " + counts[difficulte.ordinal()]);
+        }
+        System.out.printf("%d grids graded in %.3f s (%.0f grids/s)%n", nbGrids, nanos / 1e9, nbGrids * 1e9 / Math.max(nanos, 1));
+    }
+}
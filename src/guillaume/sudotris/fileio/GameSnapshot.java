@@ -0,0 +1,162 @@
+package guillaume.sudotris.fileio;
+
+import guillaume.sudotris.metier.Difficulte;
+import guillaume.sudotris.metier.Sudotris;
+import guillaume.sudotris.metier.grid.Grid;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Sauvegarde binaire, de taille fixe, d'une partie en cours : <code>SIZE</code> octets, lus et écrits en position
+ * absolue dans un ByteBuffer (tas, direct ou fichier projeté en mémoire), sans copie intermédiaire. <br>
+ * Format :
+ * <ul>
+ * <li>version du format (1 octet)</li>
+ * <li>indicateurs (1 octet) : difficulté + 1 sur les bits 0 et 1 (0 pour une partie non initialisée),
+ * solution connue sur le bit 2</li>
+ * <li>coups acceptés, puis coups refusés (2 octets chacun, plafonnés à 65535)</li>
+ * <li>grille de jeu, puis solution, compactées à 4 bits par case (c.f. GridPacker)</li>
+ * </ul>
+ * Seules les grilles 9x9 sont sauvegardées. Les occurences placées de chaque nombre ne sont pas sauvegardées : elles se
+ * déduisent de la grille de jeu à la restauration.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see GridPacker
+ * @see Sudotris#restore(Difficulte, byte[], byte[], int, int)
+ * @since 1.8
+ */
+public final class GameSnapshot {
+    /**
+     * Taille d'une sauvegarde, en octets.
+     */
+    public static final int SIZE = 6 + 2 * GridPacker.PACKED_SIZE;
+
+    private static final byte VERSION = 1;
+
+    private static final int FLAGS = 1;
+    private static final int MOVES = 2;
+    private static final int MISTAKES = 4;
+    private static final int CELLS = 6;
+    private static final int SOLUTION = CELLS + GridPacker.PACKED_SIZE;
+
+    private static final int DIFFICULTY_MASK = 0x3;
+    private static final int SOLVED = 1 << 2;
+
+    private static final Difficulte[] DIFFICULTES = Difficulte.values();
+
+    private GameSnapshot() {
+    }
+
+    /**
+     * Sauvegarde la partie donnée dans le tampon donné, à partir de la position absolue donnée. <br>
+     * Attend, si besoin, la fin de la résolution de la grille en cours.
+     *
+     * @param sudotris la partie à sauvegarder
+     * @param buffer   le tampon destination
+     * @param offset   la position du premier octet écrit
+     * @throws IllegalArgumentException si la grille de la partie n'est pas une grille 9x9
+     */
+    public static void write(Sudotris sudotris, ByteBuffer buffer, int offset) {
+        final Difficulte difficulte = sudotris.getDifficulte();
+        if (difficulte == null) {
+            write(buffer, offset, null, null, null, 0, 0);
+            return;
+        }
+        write(buffer, offset, difficulte, sudotris.getCells(), sudotris.getSolution(), sudotris.getMoveCount(),
+                sudotris.getMistakeCount());
+    }
+
+    /**
+     * Écrit une sauvegarde dans le tampon donné, à partir de la position absolue donnée.
+     *
+     * @param buffer     le tampon destination
+     * @param offset     la position du premier octet écrit
+     * @param difficulte la difficulté de la partie, ou <code>null</code> pour une partie non initialisée
+     * @param cells      les cases de la grille de jeu (ignorées pour une partie non initialisée)
+     * @param solution   les cases de la solution, ou <code>null</code> si elle n'est pas connue
+     * @param moves      le nombre de coups acceptés
+     * @param mistakes   le nombre de coups refusés
+     * @throws IllegalArgumentException si les grilles ne sont pas des grilles 9x9
+     */
+    public static void write(ByteBuffer buffer, int offset, Difficulte difficulte, byte[] cells, byte[] solution,
+                             int moves, int mistakes) {
+        int flags = 0;
+        if (difficulte != null) {
+            if (cells.length != Grid.SIZE || (solution != null && solution.length != Grid.SIZE)) {
+                throw new IllegalArgumentException("Seules les grilles de " + Grid.SIZE + " cases sont sauvegardées");
+            }
+            flags = difficulte.ordinal() + 1;
+            GridPacker.pack(cells, buffer, offset + CELLS);
+            if (solution != null) {
+                flags |= SOLVED;
+                GridPacker.pack(solution, buffer, offset + SOLUTION);
+            }
+        }
+        buffer.put(offset, VERSION);
+        buffer.put(offset + FLAGS, (byte) flags);
+        buffer.putShort(offset + MOVES, (short) Math.min(moves, 0xFFFF));
+        buffer.putShort(offset + MISTAKES, (short) Math.min(mistakes, 0xFFFF));
+    }
+
+    /**
+     * Restaure dans la partie donnée la sauvegarde lue dans le tampon donné, à partir de la position absolue donnée.
+     *
+     * @param buffer   le tampon source
+     * @param offset   la position du premier octet lu
+     * @param sudotris la partie à restaurer
+     * @return <code>vrai</code> si une partie a été restaurée; <br>
+     * <code>faux</code> si la sauvegarde est celle d'une partie non initialisée
+     * @throws IllegalArgumentException si la sauvegarde n'est pas au format attendu
+     */
+    public static boolean read(ByteBuffer buffer, int offset, Sudotris sudotris) {
+        final Difficulte difficulte = getDifficulte(buffer, offset);
+        if (difficulte == null) {
+            return false;
+        }
+
+        final byte[] cells = new byte[Grid.SIZE];
+        GridPacker.unpack(buffer, offset + CELLS, cells);
+        byte[] solution = null;
+        if ((buffer.get(offset + FLAGS) & SOLVED) != 0) {
+            solution = new byte[Grid.SIZE];
+            GridPacker.unpack(buffer, offset + SOLUTION, solution);
+        }
+        sudotris.restore(difficulte, cells, solution, buffer.getShort(offset + MOVES) & 0xFFFF,
+                buffer.getShort(offset + MISTAKES) & 0xFFFF);
+        return true;
+    }
+
+    /**
+     * Applique un coup accepté à la sauvegarde lue dans le tampon donné, sans la décompacter : la case est écrite, et
+     * le nombre de coups acceptés incrémenté.
+     *
+     * @param buffer   le tampon de la sauvegarde
+     * @param offset   la position du premier octet de la sauvegarde
+     * @param position la position de la case (<code>line * Sudotris.COLUMNS + column</code>)
+     * @param number   le nombre placé
+     */
+    public static void place(ByteBuffer buffer, int offset, int position, int number) {
+        final int index = offset + CELLS + position / 2;
+        final int packed = buffer.get(index);
+        buffer.put(index, (byte) (position % 2 == 0 ? (packed & 0x0F) | number << 4 : (packed & 0xF0) | number));
+        final int moves = buffer.getShort(offset + MOVES) & 0xFFFF;
+        buffer.putShort(offset + MOVES, (short) Math.min(moves + 1, 0xFFFF));
+    }
+
+    /**
+     * Renvoie la difficulté de la partie sauvegardée, sans la restaurer.
+     *
+     * @param buffer le tampon source
+     * @param offset la position du premier octet de la sauvegarde
+     * @return la difficulté de la partie, ou <code>null</code> pour une partie non initialisée
+     * @throws IllegalArgumentException si la sauvegarde n'est pas au format attendu
+     */
+    public static Difficulte getDifficulte(ByteBuffer buffer, int offset) {
+        if (buffer.get(offset) != VERSION) {
+            throw new IllegalArgumentException("Format de sauvegarde inconnu : " + buffer.get(offset));
+        }
+        final int difficulty = buffer.get(offset + FLAGS) & DIFFICULTY_MASK;
+        return difficulty == 0 ? null : DIFFICULTES[difficulty - 1];
+    }
+}
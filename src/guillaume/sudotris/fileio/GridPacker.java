@@ -0,0 +1,90 @@
+package guillaume.sudotris.fileio;
+
+import guillaume.sudotris.metier.grid.Grid;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compactage des grilles : chaque case (0 à 9) est codée sur 4 bits, deux cases par octet. <br>
+ * Une grille de 81 cases occupe ainsi <code>PACKED_SIZE</code> octets. Les variantes ByteBuffer lisent et écrivent en
+ * position absolue, sans copie intermédiaire (tampons directs ou fichiers projetés en mémoire compris).
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @since 1.8
+ */
+public final class GridPacker {
+    /**
+     * Nombre d'octets d'une grille compactée.
+     */
+    public static final int PACKED_SIZE = (Grid.SIZE + 1) / 2;
+
+    private GridPacker() {
+    }
+
+    /**
+     * Compacte les cases données dans le tableau destination, à partir de la position donnée.
+     *
+     * @param cells       les 81 cases de la grille
+     * @param destination le tableau destination
+     * @param offset      la position du premier octet écrit
+     */
+    public static void pack(byte[] cells, byte[] destination, int offset) {
+        for (int position = 0; position < Grid.SIZE; position += 2) {
+            final int high = cells[position];
+            final int low = position + 1 < Grid.SIZE ? cells[position + 1] : 0;
+            destination[offset + position / 2] = (byte) (high << 4 | low);
+        }
+    }
+
+    /**
+     * Décompacte la grille lue dans le tableau source, à partir de la position donnée.
+     *
+     * @param source le tableau source
+     * @param offset la position du premier octet lu
+     * @param cells  les 81 cases à remplir
+     */
+    public static void unpack(byte[] source, int offset, byte[] cells) {
+        for (int position = 0; position < Grid.SIZE; position += 2) {
+            final int packed = source[offset + position / 2];
+            cells[position] = (byte) ((packed >> 4) & 0xF);
+            if (position + 1 < Grid.SIZE) {
+                cells[position + 1] = (byte) (packed & 0xF);
+            }
+        }
+    }
+
+    /**
+     * Compacte les cases données dans le tampon destination, à partir de la position absolue donnée. <br>
+     * La position du tampon n'est pas modifiée.
+     *
+     * @param cells       les 81 cases de la grille
+     * @param destination le tampon destination
+     * @param offset      la position du premier octet écrit
+     */
+    public static void pack(byte[] cells, ByteBuffer destination, int offset) {
+        for (int position = 0; position < Grid.SIZE; position += 2) {
+            final int high = cells[position];
+            final int low = position + 1 < Grid.SIZE ? cells[position + 1] : 0;
+            destination.put(offset + position / 2, (byte) (high << 4 | low));
+        }
+    }
+
+    /**
+     * Décompacte la grille lue dans le tampon source, à partir de la position absolue donnée. <br>
+     * La position du tampon n'est pas modifiée.
+     *
+     * @param source le tampon source
+     * @param offset la position du premier octet lu
+     * @param cells  les 81 cases à remplir
+     */
+    public static void unpack(ByteBuffer source, int offset, byte[] cells) {
+        for (int position = 0; position < Grid.SIZE; position += 2) {
+            final int packed = source.get(offset + position / 2);
+            cells[position] = (byte) ((packed >> 4) & 0xF);
+            if (position + 1 < Grid.SIZE) {
+                cells[position + 1] = (byte) (packed & 0xF);
+            }
+        }
+    }
+}
@@ -2,13 +2,13 @@ package guillaume.sudotris.fileio;
 
 import guillaume.sudotris.metier.Sudotris;
 import guillaume.sudotris.metier.element.Element;
-import guillaume.sudotris.metier.element.EmptyElement;
-import guillaume.sudotris.metier.element.NotEmptyElement;
+import guillaume.sudotris.resources.GridGeometry;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.stream.Stream;
+import java.util.regex.Pattern;
 
 /**
  * Classe chargée de lire un fichier source de sudoku de la forme :
@@ -20,44 +20,224 @@ import java.util.stream.Stream;
  * @since 1.8
  */
 public class GridParser {
+    /**
+     * Séparateur des jetons d'une grille écrite un nombre par jeton.
+     */
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[\\s,]+");
+
+    /**
+     * Lit le fichier d'une grille de jeu, et en renvoie les cases, lues ligne par ligne (0 pour une case vide). <br>
+     * Deux formats sont acceptés :
+     * <ul>
+     * <li>un nombre par jeton (jetons séparés par des blancs ou des virgules), lorsque le nombre de jetons est celui
+     * d'une grille 16x16 ou 25x25 : <quote>0 8 0 ... 16 0 12</quote>; <code>.</code>, <code>-</code> et <code>0</code>
+     * désignent une case vide, et une lettre seule un nombre à partir de 10 (<code>A</code> = 10)</li>
+     * <li>un caractère par case, blancs ignorés : chiffres de 1 à 9 puis lettres à partir de <code>A</code> = 10
+     * pour les grilles 16x16 et 25x25; pour une grille 9x9, tout autre caractère désigne une case vide</li>
+     * </ul>
+     *
+     * @param path le chemin vers la grille de jeu
+     * @return les <code>side x side</code> cases de la grille (81 pour une grille 9x9)
+     * @throws IllegalArgumentException si le fichier contient un nombre hors de la grille
+     * @see guillaume.sudotris.metier.grid.Grid#initFromFile(Path)
+     * @see GridParser#parseCells(CharSequence)
+     */
+    public static byte[] parseFileToCells(Path path) {
+        final byte[] cells = new byte[Sudotris.LINES * Sudotris.COLUMNS];
+
+        try {
+            final byte[] bytes = Files.readAllBytes(path);
+            int nbTokens = 0;
+            int nbLetters = 0;
+            boolean inToken = false;
+            for (byte letter : bytes) {
+                if (!isBlank(letter)) {
+                    nbLetters++;
+                }
+                final boolean separator = isBlank(letter) || letter == ',';
+                if (!separator && !inToken) {
+                    nbTokens++;
+                }
+                inToken = !separator;
+            }
+            // Seules les grilles 16x16 et 25x25 sont décodées et découpées en jetons
+            if (orderOf(nbTokens) > 3 || orderOf(nbLetters) > 3) {
+                return parseCells(new String(bytes, StandardCharsets.UTF_8));
+            }
+
+            int position = 0;
+            for (byte letter : bytes) {
+                if (isBlank(letter)) {
+                    continue;
+                }
+                if (position == cells.length) {
+                    break;
+                }
+                if (letter >= '1' && letter <= '9') {
+                    cells[position] = (byte) (letter - '0');
+                }
+                position++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return cells;
+    }
+
+    /**
+     * Lit le texte d'une grille de jeu, dans l'un des formats de <code>parseFileToCells</code>.
+     *
+     * @param text le texte de la grille
+     * @return les <code>side x side</code> cases de la grille (81 pour une grille 9x9)
+     * @throws IllegalArgumentException si le texte contient un nombre hors de la grille
+     * @see GridParser#parseFileToCells(Path)
+     */
+    public static byte[] parseCells(CharSequence text) {
+        final String[] tokens = TOKEN_SEPARATOR.split(text.toString().trim());
+        final int order = orderOf(tokens.length);
+        if (order > 3) {
+            return parseTokens(tokens, GridGeometry.of(order));
+        }
+
+        final StringBuilder letters = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            final char letter = text.charAt(i);
+            if (!isBlank(letter)) {
+                letters.append(letter);
+            }
+        }
+        final int letterOrder = orderOf(letters.length());
+        if (letterOrder > 3) {
+            return parseLetters(letters, GridGeometry.of(letterOrder));
+        }
+
+        // Grille 9x9 : tout caractère autre qu'un chiffre est une case vide, les caractères en trop sont ignorés
+        final byte[] cells = new byte[Sudotris.LINES * Sudotris.COLUMNS];
+        for (int position = 0; position < cells.length && position < letters.length(); position++) {
+            final char letter = letters.charAt(position);
+            if (letter >= '1' && letter <= '9') {
+                cells[position] = (byte) (letter - '0');
+            }
+        }
+        return cells;
+    }
+
+    private static boolean isBlank(int letter) {
+        return letter == ' ' || letter == '\t' || letter == '\r' || letter == '\n';
+    }
+
+    /**
+     * Renvoie l'ordre de la grille supportée comptant le nombre de cases donné.
+     *
+     * @param size le nombre de cases
+     * @return l'ordre de la grille, ou 0 si aucune grille supportée ne compte ce nombre de cases
+     */
+    private static int orderOf(int size) {
+        for (int order = 3; order <= GridGeometry.MAX_ORDER; order++) {
+            if (order * order * order * order == size) {
+                return order;
+            }
+        }
+        return 0;
+    }
+
+    private static byte[] parseTokens(String[] tokens, GridGeometry geometry) {
+        final byte[] cells = new byte[geometry.size];
+        for (int position = 0; position < geometry.size; position++) {
+            final String token = tokens[position];
+            if (token.equals(".") || token.equals("-")) {
+                continue;
+            }
+            final int number;
+            if (token.length() == 1 && Character.isLetter(token.charAt(0))) {
+                number = letterToNumber(token.charAt(0));
+            } else {
+                try {
+                    number = Integer.parseInt(token);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Case mal formée : " + token, e);
+                }
+            }
+            cells[position] = checked(number, geometry, token);
+        }
+        return cells;
+    }
+
+    private static byte[] parseLetters(CharSequence letters, GridGeometry geometry) {
+        final byte[] cells = new byte[geometry.size];
+        for (int position = 0; position < geometry.size; position++) {
+            final char letter = letters.charAt(position);
+            if (letter == '.' || letter == '-' || letter == '0') {
+                continue;
+            }
+            final int number = letter >= '1' && letter <= '9' ? letter - '0' : letterToNumber(letter);
+            cells[position] = checked(number, geometry, String.valueOf(letter));
+        }
+        return cells;
+    }
+
+    private static int letterToNumber(char letter) {
+        final char upper = Character.toUpperCase(letter);
+        return upper >= 'A' && upper <= 'Z' ? upper - 'A' + 10 : -1;
+    }
+
+    private static byte checked(int number, GridGeometry geometry, String token) {
+        if (number < 0 || number > geometry.side) {
+            throw new IllegalArgumentException("Nombre hors de la grille " + geometry.side + "x" + geometry.side
+                    + " : " + token);
+        }
+        return (byte) number;
+    }
+
+    /**
+     * Lit une grille écrite sur une seule ligne de 81 caractères (format standard des recueils de grilles) :
+     * chiffres de 1 à 9, et <code>.</code> ou <code>0</code> pour une case vide. <br>
+     * Les caractères au-delà du 81ème sont ignorés.
+     *
+     * @param line  la ligne à lire
+     * @param cells le tableau de cases à remplir
+     * @return <code>vrai</code> si la ligne contient une grille bien formée; <br>
+     * <code>faux</code> sinon
+     */
+    public static boolean parseLine(CharSequence line, byte[] cells) {
+        if (line.length() < cells.length) {
+            return false;
+        }
+
+        for (int position = 0; position < cells.length; position++) {
+            final char letter = line.charAt(position);
+            if (letter >= '1' && letter <= '9') {
+                cells[position] = (byte) (letter - '0');
+            } else if (letter == '.' || letter == '0') {
+                cells[position] = 0;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Lit le fichier d'une grille de jeu, et en renvoie la matrix des éléments, composée de :
      * <ul>
-     * <li><code>NotEmptyElement</code> si le nombre est compris entre [1, 9]</li>
+     * <li><code>NotEmptyElement</code> si la case est remplie</li>
      * <li><code>EmptyElement</code> sinon</li>
-     * </ul>. <br>
-     * <i>Attention : cette méthode est redéfinie dans GridParsed, pour son cas d'utilisation particulier
-     * de gestion des éléments plaçables</i>.
+     * </ul>.
      *
      * @param path le chemin vers la grille de jeu
      * @return la matrix d'éléments correspondante
-     * @see guillaume.sudotris.metier.grid.GridParsed#initFromFile(Path)
+     * @see GridParser#parseFileToCells(Path)
      */
     public static Element[][] parseFileToMatrix(Path path) {
-        final Element[][] matrix = new Element[Sudotris.LINES][Sudotris.COLUMNS];
-
-        try (Stream<String> lines = Files.lines(path)) {
-            final byte[] lineIndex = {0};
-            final byte[] columnIndex = {0};
-
-            lines.forEach(line -> {
-                line.replaceAll("\\s+", "").chars().forEach(letter -> {
-                    final Integer value = Character.getNumericValue(letter);
-                    if (value >= 1 && value <= 9) {
-                        matrix[lineIndex[0]][columnIndex[0]] = new NotEmptyElement(lineIndex[0], columnIndex[0], value);
-                    } else {
-                        matrix[lineIndex[0]][columnIndex[0]] = new EmptyElement(lineIndex[0], columnIndex[0]);
-                    }
-
-                    columnIndex[0]++;
-                });
-
-                columnIndex[0] = 0;
-                lineIndex[0]++;
-            });
-            lines.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+        final byte[] cells = parseFileToCells(path);
+        final int side = GridGeometry.ofSize(cells.length).side;
+        final Element[][] matrix = new Element[side][side];
+
+        for (byte line = 0; line < side; line++) {
+            for (byte column = 0; column < side; column++) {
+                matrix[line][column] = Element.of(line, column, cells[line * side + column]);
+            }
         }
 
         return matrix;
@@ -0,0 +1,165 @@
+package guillaume.sudotris.fileio;
+
+import guillaume.sudotris.metier.grid.Grid;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lecteur d'un recueil de grilles au format une grille par ligne : 81 caractères, chiffres de 1 à 9,
+ * et <code>.</code> ou <code>0</code> pour une case vide. Les lignes vides, et celles commençant par <code>#</code>,
+ * sont ignorées; les caractères au-delà du 81ème sont ignorés. <br>
+ * Le fichier est projeté en mémoire (par fenêtres, pour les fichiers de plus de 2 Go) et lu octet par octet,
+ * sans création de chaîne de caractères : les grilles sont écrites dans un tableau de cases fourni par l'appelant.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see GridParser#parseLine(CharSequence, byte[])
+ * @since 1.8
+ */
+public class PuzzleFileReader implements Closeable {
+    /**
+     * Taille maximale d'une fenêtre de projection du fichier.
+     */
+    private static final long WINDOW_SIZE = 1L << 26;
+
+    private final FileChannel channel;
+    private final long fileSize;
+
+    private MappedByteBuffer window;
+    /**
+     * Position, dans le fichier, du début de la fenêtre courante.
+     */
+    private long windowStart;
+    private boolean valid;
+
+    /**
+     * Ouvre le recueil de grilles donné.
+     *
+     * @param path le chemin du recueil
+     * @throws IOException si le fichier ne peut être ouvert
+     */
+    public PuzzleFileReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileSize = channel.size();
+        map(0);
+    }
+
+    /**
+     * Lit la grille suivante du recueil. <br>
+     * Une ligne mal formée est tout de même renvoyée (grille vide), pour conserver la numérotation des grilles :
+     * <code>isValid()</code> permet alors de l'écarter.
+     *
+     * @param cells le tableau des 81 cases à remplir
+     * @return <code>vrai</code> si une grille a été lue; <br>
+     * <code>faux</code> à la fin du recueil
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public boolean next(byte[] cells) throws IOException {
+        while (true) {
+            if (windowStart + window.position() >= fileSize) {
+                return false;
+            }
+
+            int end = findLineEnd();
+            if (end < 0) {
+                // La ligne déborde de la fenêtre : on la reprojette à partir du début de la ligne
+                map(windowStart + window.position());
+                end = findLineEnd();
+                if (end < 0) {
+                    end = window.limit();
+                }
+            }
+
+            final int start = window.position();
+            window.position(end < window.limit() ? end + 1 : end);
+
+            int length = end - start;
+            while (length > 0 && isBlank(window.get(start + length - 1))) {
+                length--;
+            }
+            if (length == 0 || window.get(start) == '#') {
+                continue;
+            }
+
+            valid = parse(start, length, cells);
+            return true;
+        }
+    }
+
+    /**
+     * Indique si la dernière grille lue était bien formée.
+     *
+     * @return <code>vrai</code> si la dernière ligne lue contenait une grille valide; <br>
+     * <code>faux</code> sinon
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * Projette en mémoire la fenêtre du fichier commençant à la position donnée.
+     *
+     * @param position la position de début de la fenêtre
+     * @throws IOException en cas d'erreur de projection
+     */
+    private void map(long position) throws IOException {
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, fileSize - position));
+    }
+
+    /**
+     * Cherche la fin de la ligne courante dans la fenêtre.
+     *
+     * @return l'index du caractère de fin de ligne; la limite de la fenêtre si elle atteint la fin du fichier; <br>
+     * -1 si la ligne se poursuit au-delà de la fenêtre
+     */
+    private int findLineEnd() {
+        final int limit = window.limit();
+        for (int i = window.position(); i < limit; i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return windowStart + limit >= fileSize ? limit : -1;
+    }
+
+    private boolean parse(int start, int length, byte[] cells) {
+        if (length < Grid.SIZE) {
+            return fail(cells);
+        }
+
+        for (int position = 0; position < Grid.SIZE; position++) {
+            final byte letter = window.get(start + position);
+            if (letter >= '1' && letter <= '9') {
+                cells[position] = (byte) (letter - '0');
+            } else if (letter == '.' || letter == '0') {
+                cells[position] = 0;
+            } else {
+                return fail(cells);
+            }
+        }
+        return true;
+    }
+
+    private static boolean fail(byte[] cells) {
+        for (int position = 0; position < Grid.SIZE; position++) {
+            cells[position] = 0;
+        }
+        return false;
+    }
+
+    private static boolean isBlank(byte letter) {
+        return letter == '\r' || letter == ' ' || letter == '\t';
+    }
+}
@@ -0,0 +1,53 @@
+package guillaume.sudotris.metier;
+
+import guillaume.sudotris.metier.element.Element;
+
+/**
+ * Indice donné au joueur : le prochain élément déductible de la grille, et la technique qui le justifie.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see Sudotris#nextHint()
+ * @since 1.8
+ */
+public final class Hint {
+    private final Element element;
+    private final Technique technique;
+
+    /**
+     * Construit un indice.
+     *
+     * @param element   l'élément à placer
+     * @param technique la technique la plus difficile nécessaire pour le déduire,
+     *                  ou <code>null</code> s'il est tiré de la solution
+     */
+    public Hint(Element element, Technique technique) {
+        this.element = element;
+        this.technique = technique;
+    }
+
+    /**
+     * Renvoie l'élément à placer.
+     *
+     * @return l'élément à placer
+     */
+    public Element getElement() {
+        return element;
+    }
+
+    /**
+     * Renvoie la technique qui justifie l'indice.
+     *
+     * @return la technique la plus difficile nécessaire pour déduire l'élément, ou <code>null</code> si aucune technique
+     * connue ne suffit et que l'élément est tiré de la solution
+     */
+    public Technique getTechnique() {
+        return technique;
+    }
+
+    @Override
+    public String toString() {
+        return element.getNumber() + " en (" + element.getLine() + ", " + element.getColumn() + ")"
+                + (technique == null ? "" : " : " + technique);
+    }
+}
@@ -1,11 +1,22 @@
 package guillaume.sudotris.metier;
 
+import guillaume.sudotris.fileio.GridParser;
 import guillaume.sudotris.metier.element.Element;
+import guillaume.sudotris.metier.grid.Grid;
 import guillaume.sudotris.metier.grid.GridParsed;
 import guillaume.sudotris.metier.grid.GridSolved;
+import guillaume.sudotris.resources.DifficultyGrader;
+import guillaume.sudotris.resources.GridGenerator;
+import guillaume.sudotris.resources.GridGeometry;
 import guillaume.sudotris.resources.GrilleFileProvider;
+import guillaume.sudotris.resources.PuzzleCatalog;
+import guillaume.sudotris.resources.SolveBudget;
+import guillaume.sudotris.resources.SolveStatus;
+import guillaume.sudotris.resources.Solver;
 
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Classe métier-contrôlleur du Sudotris : <br>
@@ -25,40 +36,223 @@ public class Sudotris {
      */
     public static final byte COLUMNS = 9;
 
-    private final GridParsed gridParsed;
-    private final GridSolved gridSolved;
+    private GridParsed gridParsed;
+    private GridSolved gridSolved;
     private Difficulte difficulte;
 
+    /**
+     * Moteur de résolution des grilles 9x9 donné à la construction, ou <code>null</code> pour le moteur par défaut.
+     */
+    private final Solver solver;
+
+    /**
+     * Générateur des grilles des difficultés absentes du catalogue. Instancié à la première utilisation.
+     */
+    private GridGenerator generator;
+
+    /**
+     * Moteur des indices demandant plus que des singletons. Instancié à la première utilisation.
+     */
+    private DifficultyGrader grader;
+
+    /**
+     * Unicité de la solution de la grille en cours, calculée au premier coup refusé; <code>null</code> si inconnue.
+     */
+    private Boolean uniqueSolution;
+
+    /**
+     * Nombre de coups acceptés et de coups refusés depuis le début de la partie.
+     */
+    private int moves;
+    private int mistakes;
+
+    /**
+     * Résolution de la grille en cours de partie, lorsqu'elle a été lancée en tâche de fond (<code>null</code> sinon),
+     * son budget, et l'index de la grille dans le catalogue (-1 pour une grille générée).
+     */
+    private CompletableFuture<SolveStatus> pendingSolve;
+    private SolveBudget pendingBudget;
+    private int pendingIndex;
+
     /**
      * Default constructor.
      */
     public Sudotris() {
+        this(null);
+    }
+
+    /**
+     * Construit un Sudotris dont les grilles sont résolues par le moteur donné
+     * (par exemple un ParallelSolver, pour les grilles les plus difficiles).
+     *
+     * @param solver le moteur de résolution des grilles
+     * @see guillaume.sudotris.resources.ParallelSolver
+     */
+    public Sudotris(Solver solver) {
+        this.solver = solver;
         gridParsed = new GridParsed();
-        gridSolved = new GridSolved();
+        gridSolved = new GridSolved(solver);
+    }
+
+    /**
+     * Adapte les grilles de la partie à l'ordre donné, en les recréant si besoin. <br>
+     * Le moteur de résolution donné à la construction n'est utilisé que pour les grilles 9x9 : les grilles plus
+     * grandes sont résolues par le moteur par défaut de leur ordre.
+     *
+     * @param order l'ordre des grilles de la partie (3 pour 9x9)
+     * @see Grid#getSolver()
+     */
+    private void resize(int order) {
+        if (gridParsed.getOrder() == order) {
+            return;
+        }
+        gridParsed = new GridParsed(order);
+        gridSolved = new GridSolved(order, order == 3 ? solver : null);
+    }
+
+    /**
+     * Initialise une partie de Sudotris depuis le fichier de grille donné, de n'importe quel ordre supporté
+     * (9x9, 16x16, 25x25). La grille est résolue immédiatement. <br>
+     * La difficulté d'une grille 9x9 est évaluée d'après les techniques nécessaires à sa résolution; les grilles
+     * plus grandes sont considérées comme difficiles.
+     *
+     * @param path le chemin du fichier de la grille
+     * @throws IllegalArgumentException si le fichier ne contient pas une grille supportée
+     * @see GridParser#parseFileToCells(Path)
+     */
+    public void init(Path path) {
+        cancelPendingSolve();
+        this.uniqueSolution = null;
+        this.moves = 0;
+        this.mistakes = 0;
+
+        final byte[] cells = GridParser.parseFileToCells(path);
+        resize(GridGeometry.ofSize(cells.length).order);
+        gridParsed.initFromCells(cells);
+        gridSolved.initFromGrid(gridParsed);
+
+        if (gridParsed.getOrder() != 3) {
+            this.difficulte = Difficulte.HARD;
+            return;
+        }
+        if (grader == null) {
+            grader = new DifficultyGrader();
+        }
+        this.difficulte = grader.grade(cells).getDifficulte();
     }
 
     /**
-     * Initialise une partie de Sudotris pour une difficulté donnée.
+     * Renvoie le nombre de cases d'une ligne de la grille de la partie.
+     *
+     * @return le côté de la grille (9 pour une grille 9x9)
+     */
+    public int getSide() {
+        return gridParsed.getSide();
+    }
+
+    /**
+     * Initialise une partie de Sudotris pour une difficulté donnée. <br>
+     * La grille est tirée du catalogue des grilles de jeu, sans accès disque une fois le catalogue indexé.
+     * Si le catalogue ne contient aucune grille de cette difficulté, une grille est générée.
      *
      * @param difficulte la difficulte de la partie à jouer
      */
     public void init(Difficulte difficulte) {
+        init(difficulte, null);
+    }
+
+    /**
+     * Initialise une partie de Sudotris pour une difficulté donnée, sans attendre la résolution de la grille. <br>
+     * Si la solution de la grille tirée n'est pas connue du catalogue, la méthode rend la main dès la grille de jeu
+     * chargée, et la résolution se poursuit sur l'exécuteur donné : seul le premier coup (ou le premier indice
+     * nécessitant la solution) l'attend, si elle n'est pas encore terminée.
+     *
+     * @param difficulte la difficulte de la partie à jouer
+     * @param executor   l'exécuteur de la résolution, ou <code>null</code> pour résoudre la grille immédiatement
+     * @see Grid#getSharedExecutor()
+     */
+    public void init(Difficulte difficulte, Executor executor) {
+        cancelPendingSolve();
+        resize(3);
         this.difficulte = difficulte;
+        this.uniqueSolution = null;
+        this.moves = 0;
+        this.mistakes = 0;
+
+        final PuzzleCatalog catalog = GrilleFileProvider.getCatalog();
+        final byte[] cells = new byte[Grid.SIZE];
 
-        final Path gridPath = GrilleFileProvider.getParsedGridPath(difficulte);
+        if (catalog.size(difficulte) == 0) {
+            if (generator == null) {
+                generator = new GridGenerator();
+            }
+            final byte[] solution = new byte[Grid.SIZE];
+            generator.generate(difficulte, cells, solution);
+            gridParsed.initFromCells(cells);
+            gridSolved.initFromSolution(solution);
+            return;
+        }
+
+        final int index = catalog.pick(difficulte);
 
-        // Méthode 1 : grille finie
-        // gridParsed.initFromFile(gridPath);
-        // gridSolved.initFromFile(GrilleFileProvider.getFilledGridPath(gridPath));
+        catalog.getPuzzle(difficulte, index, cells);
+        gridParsed.initFromCells(cells);
 
-        // Méthode 2 : sudoku solver
-        gridParsed.initFromFile(gridPath);
+        // Méthode 1 : grille finie (connue du catalogue)
+        if (catalog.getSolution(difficulte, index, cells)) {
+            gridSolved.initFromSolution(cells);
+            return;
+        }
+
+        // Méthode 2 : sudoku solver, en tâche de fond si demandé; solution enregistrée pour les parties suivantes
+        if (executor != null) {
+            pendingIndex = index;
+            pendingBudget = SolveBudget.unlimited();
+            pendingSolve = gridSolved.initFromGridAsync(gridParsed, executor, pendingBudget);
+            return;
+        }
         gridSolved.initFromGrid(gridParsed);
+        if (gridSolved.isSolved()) {
+            catalog.putSolution(difficulte, index, gridSolved.getCells());
+        }
+    }
+
+    /**
+     * Attend la fin de la résolution lancée en tâche de fond, s'il y en a une, et enregistre la solution trouvée
+     * dans le catalogue.
+     */
+    private void awaitSolution() {
+        if (pendingSolve == null) {
+            return;
+        }
+        final SolveStatus status = pendingSolve.join();
+        pendingSolve = null;
+        pendingBudget = null;
+        if (status == SolveStatus.SOLVED) {
+            GrilleFileProvider.getCatalog().putSolution(difficulte, pendingIndex, gridSolved.getCells());
+        }
+    }
+
+    /**
+     * Annule la résolution lancée en tâche de fond, s'il y en a une, et attend son interruption :
+     * la grille résolue peut ensuite être réinitialisée sans risque.
+     */
+    private void cancelPendingSolve() {
+        if (pendingSolve == null) {
+            return;
+        }
+        pendingBudget.cancel();
+        pendingSolve.handle((status, error) -> status).join();
+        pendingSolve = null;
+        pendingBudget = null;
     }
 
     /**
      * Vérifie et ajoute l'élément donné après vérification. <br>
-     * Renvoie un booléen indiquant si oui, ou non, l'élément a été ajouté.
+     * Renvoie un booléen indiquant si oui, ou non, l'élément a été ajouté. <br>
+     * Si la grille admet plusieurs solutions, un élément absent de la solution calculée est tout de même accepté
+     * s'il mène à une autre solution : celle-ci devient alors la solution de référence. Un élément contredisant
+     * sa ligne, sa colonne ou son bloc est refusé sans autre vérification.
      *
      * @param element l'élément à ajouter
      * @return <code>vrai</code> si l'élément a été ajouté; <br>
@@ -73,13 +267,137 @@ public class Sudotris {
             throw new IllegalArgumentException("Un élément est déjà placé à cet endroit");
         }
 
-        if (!gridSolved.getElement(element.getLine(), element.getColumn()).equals(element)) {
+        // Un coup illégal est refusé sans attendre la solution
+        if (!gridParsed.isLegal(element.getLine(), element.getColumn(), element.getNumber())) {
+            mistakes++;
+            return false;
+        }
+
+        awaitSolution();
+        if (!gridSolved.getElement(element.getLine(), element.getColumn()).equals(element)
+                && !adoptAlternativeSolution(element)) {
+            mistakes++;
             return false;
         }
         gridParsed.addElement(element);
+        moves++;
+        return true;
+    }
+
+    /**
+     * Cherche une autre solution de la grille contenant l'élément donné, et l'adopte comme solution de référence. <br>
+     * L'unicité de la solution n'est vérifiée qu'une fois par partie (en comptant les solutions jusqu'à 2) :
+     * pour une grille à solution unique, un coup refusé ne coûte donc pas de résolution supplémentaire.
+     *
+     * @param element l'élément refusé par la solution calculée
+     * @return <code>vrai</code> si une solution contenant l'élément a été trouvée et adoptée; <br>
+     * <code>faux</code> sinon
+     */
+    private boolean adoptAlternativeSolution(Element element) {
+        if (uniqueSolution == null) {
+            uniqueSolution = gridSolved.getSolver().countSolutions(gridParsed.getCells(), 2) == 1;
+        }
+        if (uniqueSolution) {
+            return false;
+        }
+
+        final byte[] candidate = gridParsed.getCells();
+        candidate[element.getLine() * gridParsed.getSide() + element.getColumn()] = (byte) element.getNumber();
+        final byte[] previous = gridSolved.getCells();
+
+        gridSolved.initFromCells(candidate);
+        if (!gridSolved.isSolved()) {
+            gridSolved.initFromSolution(previous);
+            return false;
+        }
+        uniqueSolution = null;
         return true;
     }
 
+    /**
+     * Renvoie le prochain élément déductible de la grille de jeu, et la technique qui le justifie. <br>
+     * Les singletons (nus, puis cachés) sont cherchés directement dans les candidats maintenus par la grille de jeu,
+     * sans résolution. À défaut, les techniques plus avancées sont appliquées sur les grilles 9x9 (c.f.
+     * DifficultyGrader), et en dernier recours l'élément est tiré de la solution, pour la case ayant le moins de
+     * candidats.
+     *
+     * @return l'indice, ou <code>null</code> si la grille de jeu est remplie
+     * @see GridParsed#getCandidates(byte, byte)
+     */
+    public Hint nextHint() {
+        final GridGeometry geometry = GridGeometry.of(gridParsed.getOrder());
+        int fewest = -1;
+        int fewestCount = Integer.MAX_VALUE;
+
+        // Singletons nus
+        for (int position = 0; position < geometry.size; position++) {
+            final byte line = (byte) geometry.line[position];
+            final byte column = (byte) geometry.column[position];
+            if (gridParsed.getNumber(line, column) != 0) {
+                continue;
+            }
+            final int candidates = gridParsed.getCandidates(line, column);
+            final int count = Integer.bitCount(candidates);
+            if (count == 1) {
+                return hint(geometry, position, Integer.numberOfTrailingZeros(candidates) + 1,
+                        Technique.NAKED_SINGLE);
+            }
+            if (count < fewestCount) {
+                fewest = position;
+                fewestCount = count;
+            }
+        }
+        if (fewest < 0) {
+            return null;
+        }
+
+        // Singletons cachés : nombres candidats d'une seule case de l'unité
+        for (int[] unit : geometry.units) {
+            int once = 0;
+            int twice = 0;
+            for (int position : unit) {
+                final int candidates = candidates(geometry, position);
+                twice |= once & candidates;
+                once |= candidates;
+            }
+            final int single = once & ~twice;
+            if (single == 0) {
+                continue;
+            }
+            for (int position : unit) {
+                final int candidates = candidates(geometry, position);
+                if ((candidates & single) != 0) {
+                    return hint(geometry, position, Integer.numberOfTrailingZeros(candidates & single) + 1,
+                            Technique.HIDDEN_SINGLE);
+                }
+            }
+        }
+
+        // Techniques avancées (grilles 9x9)
+        if (geometry.order == 3) {
+            if (grader == null) {
+                grader = new DifficultyGrader();
+            }
+            final Hint hint = grader.hint(gridParsed.getCells());
+            if (hint != null) {
+                return hint;
+            }
+        }
+
+        // Dernier recours : la solution
+        awaitSolution();
+        return new Hint(gridSolved.getElement((byte) geometry.line[fewest], (byte) geometry.column[fewest]), null);
+    }
+
+    private int candidates(GridGeometry geometry, int position) {
+        return gridParsed.getCandidates((byte) geometry.line[position], (byte) geometry.column[position]);
+    }
+
+    private static Hint hint(GridGeometry geometry, int position, int number, Technique technique) {
+        return new Hint(Element.of((byte) geometry.line[position], (byte) geometry.column[position], number),
+                technique);
+    }
+
     /**
      * Renvoie un booléen qui indique si la partie est terminée (<=> la grille de jeu est remplie).
      *
@@ -87,7 +405,84 @@ public class Sudotris {
      * <code>faux</code> sinon.
      */
     public boolean isFinished() {
-        return true; //gridParsed.isFilled();
+        return gridParsed.isFilled();
+    }
+
+    /**
+     * Renvoie une copie des cases de la grille de jeu, lues ligne par ligne (0 pour une case vide).
+     *
+     * @return une copie des cases de la grille de jeu
+     */
+    public byte[] getCells() {
+        return gridParsed.getCells();
+    }
+
+    /**
+     * Renvoie une copie de la solution de référence de la partie, en attendant si besoin la fin de sa résolution.
+     *
+     * @return une copie des cases de la solution, ou <code>null</code> si la grille n'a pas pu être résolue
+     */
+    public byte[] getSolution() {
+        awaitSolution();
+        return gridSolved.isSolved() ? gridSolved.getCells() : null;
+    }
+
+    /**
+     * Restaure une partie en cours (par exemple une partie mise en sommeil hors du tas), sans tirer de grille.
+     * L'ordre de la grille se déduit du nombre de cases.
+     *
+     * @param difficulte la difficulté de la partie
+     * @param cells      les cases de la grille de jeu
+     * @param solution   les cases de la solution de référence, ou <code>null</code> pour résoudre à nouveau la grille
+     * @see Sudotris#getCells()
+     * @see Sudotris#getSolution()
+     */
+    public void restore(Difficulte difficulte, byte[] cells, byte[] solution) {
+        restore(difficulte, cells, solution, 0, 0);
+    }
+
+    /**
+     * Restaure une partie en cours, avec ses compteurs de coups.
+     *
+     * @param difficulte la difficulté de la partie
+     * @param cells      les cases de la grille de jeu
+     * @param solution   les cases de la solution de référence, ou <code>null</code> pour résoudre à nouveau la grille
+     * @param moves      le nombre de coups acceptés
+     * @param mistakes   le nombre de coups refusés
+     * @see guillaume.sudotris.fileio.GameSnapshot
+     */
+    public void restore(Difficulte difficulte, byte[] cells, byte[] solution, int moves, int mistakes) {
+        cancelPendingSolve();
+        this.difficulte = difficulte;
+        this.uniqueSolution = null;
+        this.moves = moves;
+        this.mistakes = mistakes;
+
+        resize(GridGeometry.ofSize(cells.length).order);
+        gridParsed.initFromCells(cells);
+        if (solution != null) {
+            gridSolved.initFromSolution(solution);
+        } else {
+            gridSolved.initFromGrid(gridParsed);
+        }
+    }
+
+    /**
+     * Renvoie le nombre de coups acceptés depuis le début de la partie.
+     *
+     * @return le nombre de coups acceptés
+     */
+    public int getMoveCount() {
+        return moves;
+    }
+
+    /**
+     * Renvoie le nombre de coups refusés depuis le début de la partie.
+     *
+     * @return le nombre de coups refusés
+     */
+    public int getMistakeCount() {
+        return mistakes;
     }
 
     /**
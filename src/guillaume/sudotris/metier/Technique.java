@@ -0,0 +1,79 @@
+package guillaume.sudotris.metier;
+
+/**
+ * Énumération des techniques de résolution "humaines", de la plus simple à la plus difficile. <br>
+ * Chaque technique a un poids (contribution au score de difficulté d'une grille à chaque utilisation),
+ * et la difficulté de jeu à laquelle elle correspond.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see Difficulte
+ * @since 1.8
+ */
+public enum Technique {
+    /**
+     * Singleton nu : la case n'a plus qu'un seul candidat.
+     */
+    NAKED_SINGLE(1, Difficulte.EASY),
+    /**
+     * Singleton caché : le chiffre n'a plus qu'une seule case possible dans une ligne, une colonne ou un bloc.
+     */
+    HIDDEN_SINGLE(2, Difficulte.EASY),
+    /**
+     * Candidats pointants : dans un bloc, le chiffre est confiné à une ligne (ou colonne),
+     * il est donc exclu du reste de cette ligne.
+     */
+    POINTING(10, Difficulte.MEDIUM),
+    /**
+     * Réduction ligne/bloc : dans une ligne (ou colonne), le chiffre est confiné à un bloc,
+     * il est donc exclu du reste de ce bloc.
+     */
+    BOX_LINE_REDUCTION(12, Difficulte.MEDIUM),
+    /**
+     * Paire nue : deux cases d'une unité ont les deux mêmes candidats, exclus des autres cases de l'unité.
+     */
+    NAKED_PAIR(15, Difficulte.MEDIUM),
+    /**
+     * Paire cachée : deux chiffres d'une unité n'ont que les deux mêmes cases possibles,
+     * qui ne peuvent donc contenir qu'eux.
+     */
+    HIDDEN_PAIR(20, Difficulte.MEDIUM),
+    /**
+     * Triplet nu : trois cases d'une unité se partagent trois candidats, exclus des autres cases de l'unité.
+     */
+    NAKED_TRIPLE(30, Difficulte.HARD),
+    /**
+     * X-Wing : dans deux lignes, le chiffre n'a que les deux mêmes colonnes possibles (ou inversement).
+     */
+    X_WING(50, Difficulte.HARD),
+    /**
+     * Swordfish : X-Wing généralisé à trois lignes et trois colonnes.
+     */
+    SWORDFISH(80, Difficulte.HARD);
+
+    private final int weight;
+    private final Difficulte difficulte;
+
+    Technique(int weight, Difficulte difficulte) {
+        this.weight = weight;
+        this.difficulte = difficulte;
+    }
+
+    /**
+     * Renvoie le poids de la technique dans le score de difficulté.
+     *
+     * @return le poids de la technique
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Renvoie la difficulté de jeu correspondant à la technique.
+     *
+     * @return la difficulté de la technique
+     */
+    public Difficulte getDifficulte() {
+        return difficulte;
+    }
+}
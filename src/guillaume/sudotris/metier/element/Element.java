@@ -24,6 +24,40 @@ public abstract class Element {
         this.column = column;
     }
 
+    /**
+     * Renvoie l'élément de coordonnées et de nombre donnés. <br>
+     * Les éléments étant immuables, les 81 x 10 instances possibles d'une grille 9x9 (position x nombre, 0 pour un
+     * élément vide) sont créées une seule fois et partagées : aucune allocation n'est faite. Les éléments des grilles
+     * plus grandes (16x16, 25x25) sont instanciés à la demande.
+     *
+     * @param line   ligne de l'élément sur la grille de jeu
+     * @param column colonne de l'élément sur la grille de jeu
+     * @param number le nombre de l'élément, ou 0 pour un élément vide
+     * @return l'élément correspondant
+     * @throws IllegalArgumentException si les coordonnées ou le nombre sont négatifs
+     */
+    public static Element of(byte line, byte column, int number) {
+        if (line >= 0 && line < 9 && column >= 0 && column < 9 && number >= 0 && number <= 9) {
+            return Table.ELEMENTS[(line * 9 + column) * 10 + number];
+        }
+        if (line < 0 || column < 0 || number < 0) {
+            throw new IllegalArgumentException("Élément hors de la grille : " + line + "," + column + "=" + number);
+        }
+        return number == 0 ? new EmptyElement(line, column) : new NotEmptyElement(line, column, number);
+    }
+
+    /**
+     * Renvoie l'instance canonique de l'élément vide aux coordonnées données.
+     *
+     * @param line   ligne de l'élément sur la grille de jeu
+     * @param column colonne de l'élément sur la grille de jeu
+     * @return l'élément vide correspondant
+     * @see Element#of(byte, byte, int)
+     */
+    public static Element empty(byte line, byte column) {
+        return of(line, column, 0);
+    }
+
     /**
      * Indique si l'élément est vide, ou non.
      *
@@ -74,4 +108,23 @@ public abstract class Element {
         result = 31 * result + column;
         return result;
     }
+
+    /**
+     * Table des instances canoniques, initialisée au premier appel de Element#of.
+     */
+    private static final class Table {
+        private static final Element[] ELEMENTS = new Element[81 * 10];
+
+        static {
+            for (byte line = 0; line < 9; line++) {
+                for (byte column = 0; column < 9; column++) {
+                    final int base = (line * 9 + column) * 10;
+                    ELEMENTS[base] = new EmptyElement(line, column);
+                    for (int number = 1; number <= 9; number++) {
+                        ELEMENTS[base + number] = new NotEmptyElement(line, column, number);
+                    }
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
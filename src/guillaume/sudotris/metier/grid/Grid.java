@@ -3,14 +3,28 @@ package guillaume.sudotris.metier.grid;
 import guillaume.sudotris.fileio.GridParser;
 import guillaume.sudotris.metier.Sudotris;
 import guillaume.sudotris.metier.element.Element;
-import guillaume.sudotris.metier.element.EmptyElement;
-import guillaume.sudotris.metier.element.NotEmptyElement;
-import guillaume.sudotris.resources.SudokuSolver;
+import guillaume.sudotris.resources.BitsetSolver;
+import guillaume.sudotris.resources.CachingSolver;
+import guillaume.sudotris.resources.GridGeometry;
+import guillaume.sudotris.resources.PooledSolver;
+import guillaume.sudotris.resources.SolutionCache;
+import guillaume.sudotris.resources.SolveBudget;
+import guillaume.sudotris.resources.SolveStatus;
+import guillaume.sudotris.resources.Solver;
 
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Classe Grid qui définit une grille de jeu.
+ * Classe Grid qui définit une grille de jeu. <br>
+ * La grille est stockée sous forme d'un tableau primitif de <code>side x side</code> cases (9x9 par défaut, 16x16 ou
+ * 25x25 selon l'ordre de la grille) : les éléments ne sont matérialisés qu'à la demande, via <code>getElement</code>
+ * et <code>getMatrix</code>.
  *
  * @author Guillaume Chanson
  * @version 1.0
@@ -20,9 +34,21 @@ import java.nio.file.Path;
  */
 public abstract class Grid {
     /**
-     * Matrice <code>Sudotris.LINES x Sudotris.COLUMNS</code> contenant la grille d'éléments de la grille de jeu.
+     * Nombre de cases d'une grille 9x9.
      */
-    protected Element[][] matrix;
+    public static final int SIZE = Sudotris.LINES * Sudotris.COLUMNS;
+
+    /**
+     * Ordre de la grille (3 pour une grille 9x9), et nombre de cases d'une ligne : <code>order²</code>.
+     */
+    protected final int order;
+    protected final int side;
+
+    /**
+     * Cases de la grille de jeu, lues ligne par ligne : <code>cells[line * side + column]</code>. <br>
+     * Chaque case contient le nombre placé, ou 0 si elle est vide.
+     */
+    protected final byte[] cells;
 
     /**
      * <code>vrai</code> si la grille a été résolue; <br>
@@ -30,14 +56,67 @@ public abstract class Grid {
      */
     protected boolean solved;
 
+    /**
+     * Moteurs de résolution par défaut de chaque ordre, partagés par toutes les grilles, créés à la première demande.
+     */
+    private static final Solver[] DEFAULT_SOLVERS = new Solver[GridGeometry.MAX_ORDER + 1];
+
+    /**
+     * Moteur de résolution de la grille. Moteur par défaut de son ordre s'il n'a pas été fourni.
+     */
+    private Solver solver;
+
     /**
      * Constructeur par défaut de la classe Grid. <br>
-     * Initialise la matrix représentatrice de la grille d'éléments du jeu.
+     * Initialise une grille de jeu vide.
      */
     protected Grid() {
-        this.matrix = new Element[Sudotris.LINES][Sudotris.COLUMNS];
+        this(null);
+    }
+
+    /**
+     * Construit une grille résolue, si besoin, par le moteur donné.
+     *
+     * @param solver le moteur de résolution à utiliser, ou <code>null</code> pour le moteur par défaut
+     * @see Grid#getSolver()
+     */
+    protected Grid(Solver solver) {
+        this(3, solver);
+    }
+
+    /**
+     * Construit une grille de l'ordre donné, résolue, si besoin, par le moteur donné.
+     *
+     * @param order  l'ordre de la grille (3 pour 9x9, 4 pour 16x16, 5 pour 25x25)
+     * @param solver le moteur de résolution à utiliser, ou <code>null</code> pour le moteur par défaut
+     * @throws IllegalArgumentException si l'ordre n'est pas supporté
+     * @see GridGeometry#of(int)
+     */
+    protected Grid(int order, Solver solver) {
+        final GridGeometry geometry = GridGeometry.of(order);
+        this.order = order;
+        this.side = geometry.side;
+        this.cells = new byte[geometry.size];
         this.solved = false;
-        empty();
+        this.solver = solver;
+    }
+
+    /**
+     * Renvoie l'ordre de la grille.
+     *
+     * @return l'ordre de la grille (3 pour une grille 9x9)
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * Renvoie le nombre de cases d'une ligne (ou d'une colonne) de la grille.
+     *
+     * @return le côté de la grille (9 pour une grille 9x9)
+     */
+    public int getSide() {
+        return side;
     }
 
     /**
@@ -62,55 +141,222 @@ public abstract class Grid {
      * Remplit la grille de jeu depuis le fichier de chemin donné.
      *
      * @param path le chemin (relatif ou absolu) du fichier  parser
+     * @throws IllegalArgumentException si la grille du fichier n'a pas la taille de la grille
      */
     public void initFromFile(Path path) {
+        final byte[] parsed = GridParser.parseFileToCells(path);
+        if (parsed.length != cells.length) {
+            throw new IllegalArgumentException("La grille doit comporter " + cells.length + " cases");
+        }
         solved = false;
-        matrix = GridParser.parseFileToMatrix(path);
+        System.arraycopy(parsed, 0, cells, 0, cells.length);
+        onLoaded();
     }
 
     /**
      * Remplit la grille de jeu depuis la grille donnée.
      *
      * @param grid la grille de jeu à copier
+     * @throws IllegalArgumentException si la grille donnée n'a pas la taille de la grille
      */
     public void initFromGrid(Grid grid) {
+        if (grid.cells.length != cells.length) {
+            throw new IllegalArgumentException("La grille doit comporter " + cells.length + " cases");
+        }
         solved = false;
+        System.arraycopy(grid.cells, 0, cells, 0, cells.length);
+        onLoaded();
+    }
 
-        for (byte line = 0; line < 9; line++) {
-            for (byte col = 0; col < 9; col++) {
-                final Element el = grid.getElement(line, col);
-                if (el.isEmpty()) {
-                    matrix[line][col] = new EmptyElement(line, col);
-                } else {
-                    matrix[line][col] = new NotEmptyElement(line, col, el.getNumber());
-                }
-            }
+    /**
+     * Remplit la grille de jeu depuis le tableau de cases donné (lu ligne par ligne, 0 pour une case vide).
+     *
+     * @param cells les cases de la grille de jeu à copier
+     * @throws IllegalArgumentException si le tableau n'a pas la taille de la grille
+     */
+    public void initFromCells(byte[] cells) {
+        if (cells.length != this.cells.length) {
+            throw new IllegalArgumentException("La grille doit comporter " + this.cells.length + " cases");
         }
+        solved = false;
+        System.arraycopy(cells, 0, this.cells, 0, cells.length);
+        onLoaded();
     }
 
     /**
      * Vide la grille de jeu.
      */
     public void empty() {
-        for (byte line = 0; line < 9; line++) {
-            for (byte col = 0; col < 9; col++) {
-                matrix[line][col] = new EmptyElement(line, col);
-            }
-        }
+        solved = false;
+        Arrays.fill(cells, (byte) 0);
+        onLoaded();
+    }
+
+    /**
+     * Méthode appelée après chaque (ré)initialisation des cases de la grille. <br>
+     * À redéfinir par les grilles maintenant un état dérivé des cases.
+     */
+    protected void onLoaded() {
     }
 
     /**
-     * Résoud cette grille en faisant appel à la ressource SudokuSolver. <br>
+     * Résoud cette grille en faisant appel au moteur de résolution de la grille. <br>
      * <b>Attention :</b> ne résoud la grille que si elle n'a été ni résolue, ni entièrement complétée.
      *
-     * @see SudokuSolver
+     * @see Grid#getSolver()
      */
     public void solveGrid() {
         if (isSolved() || isFilled()) {
             return;
         }
-        (new SudokuSolver(this)).solveGrid();
-        solved = true;
+        if (getSolver().solve(cells)) {
+            solved = true;
+        }
+    }
+
+    /**
+     * Résoud cette grille dans la limite du budget donné. <br>
+     * <b>Attention :</b> ne résoud la grille que si elle n'a été ni résolue, ni entièrement complétée.
+     *
+     * @param budget le budget de la résolution (nombre de nœuds, échéance, annulation)
+     * @return l'issue de la résolution : SOLVED si la grille était déjà résolue ou complétée
+     * @see Solver#solve(byte[], SolveBudget)
+     */
+    public SolveStatus solveGrid(SolveBudget budget) {
+        if (isSolved() || isFilled()) {
+            return SolveStatus.SOLVED;
+        }
+        final SolveStatus status = getSolver().solve(cells, budget);
+        if (status == SolveStatus.SOLVED) {
+            solved = true;
+        }
+        return status;
+    }
+
+    /**
+     * Résoud cette grille en tâche de fond, sur l'exécuteur partagé des résolutions.
+     *
+     * @param budget le budget de la résolution
+     * @return le futur de l'issue de la résolution
+     * @see Grid#solveGridAsync(Executor, SolveBudget)
+     */
+    public CompletableFuture<SolveStatus> solveGridAsync(SolveBudget budget) {
+        return solveGridAsync(getSharedExecutor(), budget);
+    }
+
+    /**
+     * Renvoie l'exécuteur partagé des résolutions en tâche de fond : un thread démon par processeur.
+     *
+     * @return l'exécuteur partagé des résolutions
+     */
+    public static Executor getSharedExecutor() {
+        return ExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Résoud cette grille en tâche de fond, sur l'exécuteur donné, dans la limite du budget donné. <br>
+     * Annuler le futur annule le budget : la recherche s'interrompt alors à sa prochaine consultation du budget. <br>
+     * <b>Attention :</b> la grille (et son moteur de résolution) ne doit être ni lue, ni modifiée, tant que la recherche
+     * n'est pas terminée.
+     *
+     * @param executor l'exécuteur sur lequel lancer la résolution
+     * @param budget   le budget de la résolution
+     * @return le futur de l'issue de la résolution
+     * @see Grid#solveGrid(SolveBudget)
+     */
+    public CompletableFuture<SolveStatus> solveGridAsync(Executor executor, SolveBudget budget) {
+        final CompletableFuture<SolveStatus> future = new CompletableFuture<>();
+        future.whenComplete((status, error) -> {
+            if (future.isCancelled()) {
+                budget.cancel();
+            }
+        });
+
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(solveGrid(budget));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Compte les solutions de cette grille, en s'arrêtant dès que la limite est atteinte. La grille n'est pas modifiée.
+     *
+     * @param limit le nombre de solutions au-delà duquel la recherche s'arrête
+     * @return le nombre de solutions trouvées, au plus <code>limit</code>
+     * @see Solver#countSolutions(byte[], int)
+     */
+    public int countSolutions(int limit) {
+        return getSolver().countSolutions(cells, limit);
+    }
+
+    /**
+     * Indique si cette grille a une solution unique : il suffit pour cela de compter ses solutions jusqu'à 2.
+     *
+     * @return <code>vrai</code> si la grille a exactement une solution; <br>
+     * <code>faux</code> sinon (aucune, ou plusieurs solutions)
+     */
+    public boolean hasUniqueSolution() {
+        return countSolutions(2) == 1;
+    }
+
+    /**
+     * Renvoie le moteur de résolution de la grille. Par défaut, le moteur partagé par toutes les grilles de son
+     * ordre : un réservoir de DancingLinksSolver derrière le cache de solutions partagé pour une grille 9x9, un
+     * réservoir de BitsetSolver pour les grilles plus grandes. Le nombre de moteurs instanciés est ainsi borné par le
+     * nombre de résolutions simultanées, et non par le nombre de grilles.
+     *
+     * @return le moteur de résolution de la grille
+     * @see SolutionCache#getShared()
+     * @see PooledSolver
+     * @see BitsetSolver
+     */
+    public Solver getSolver() {
+        if (solver == null) {
+            solver = getDefaultSolver(order);
+        }
+        return solver;
+    }
+
+    private static Solver getDefaultSolver(int order) {
+        synchronized (DEFAULT_SOLVERS) {
+            if (DEFAULT_SOLVERS[order] == null) {
+                DEFAULT_SOLVERS[order] = order == 3
+                        ? new CachingSolver(new PooledSolver(), SolutionCache.getShared())
+                        : new PooledSolver(() -> new BitsetSolver(order));
+            }
+            return DEFAULT_SOLVERS[order];
+        }
+    }
+
+    /**
+     * Change le moteur de résolution de la grille.
+     *
+     * @param solver le nouveau moteur de résolution
+     */
+    public void setSolver(Solver solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * Renvoie le nombre placé aux coordonnées données.
+     *
+     * @param line   ligne de la case
+     * @param column colonne de la case
+     * @return le nombre placé, ou 0 si la case est vide
+     */
+    public int getNumber(byte line, byte column) {
+        return cells[line * side + column];
     }
 
     /**
@@ -121,15 +367,45 @@ public abstract class Grid {
      * @return l'élément contenu aux coordonnées données
      */
     public Element getElement(byte line, byte column) {
-        return matrix[line][column];
+        return Element.of(line, column, cells[line * side + column]);
+    }
+
+    /**
+     * Renvoie une copie des cases de la grille, lues ligne par ligne (0 pour une case vide).
+     *
+     * @return une copie des cases de la grille
+     */
+    public byte[] getCells() {
+        return cells.clone();
     }
 
     /**
-     * Renvoie la matrice d'éléments représentant la grille de jeu.
+     * Renvoie la matrice d'éléments représentant la grille de jeu. <br>
+     * La matrice est une vue construite à chaque appel : la modifier n'a pas d'effet sur la grille.
      *
      * @return une matrice d'éléments
      */
     public Element[][] getMatrix() {
+        final Element[][] matrix = new Element[side][side];
+        for (byte line = 0; line < side; line++) {
+            for (byte col = 0; col < side; col++) {
+                matrix[line][col] = getElement(line, col);
+            }
+        }
         return matrix;
     }
-}
\ No newline at end of file
+
+    /**
+     * Exécuteur partagé des résolutions en tâche de fond : un thread démon par processeur, créés à la première
+     * résolution.
+     */
+    private static final class ExecutorHolder {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+        private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), runnable -> {
+                    final Thread thread = new Thread(runnable, "sudotris-solver-" + THREADS.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
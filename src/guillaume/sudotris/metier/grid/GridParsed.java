@@ -1,22 +1,20 @@
 package guillaume.sudotris.metier.grid;
 
 
-import guillaume.sudotris.metier.Sudotris;
 import guillaume.sudotris.metier.element.Element;
-import guillaume.sudotris.metier.element.EmptyElement;
 import guillaume.sudotris.metier.element.NotEmptyElement;
+import guillaume.sudotris.resources.GridGeometry;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Stream;
 
 /**
  * Gère la grille partielle de jeu. <br>
- * Chaque élément placé est une instance de NotEmptyElement, et chaque élément vide est une instance d'EmptyElement.
+ * Chaque élément placé est exposé par une instance de NotEmptyElement, et chaque élément vide par une instance d'EmptyElement. <br>
+ * Les coups légaux sont suivis incrémentalement : nombres placés par ligne, colonne et bloc (un bit par nombre), et
+ * cases encore possibles pour chaque nombre (un bit par case). Chaque ajout d'élément ne met à jour que ces masques,
+ * et les requêtes sur les candidats sont en temps constant.
  *
  * @author Guillaume Chanson
  * @version 1.0
@@ -29,14 +27,43 @@ public class GridParsed extends Grid {
     /**
      * Liste des éléments plaçables. Le fonctionnement est le suivant : <br>
      * <ul>
-     * <li>les chiffres de la grille sont les index du tableau : <i>{0, 1, 2, ... 8} -> chiffres {1, 2, 3, ... 9}</i></li>
+     * <li>les nombres de la grille sont les index du tableau : <i>{0, 1, 2, ... 8} -> nombres {1, 2, 3, ... 9}</i></li>
      * <li>la valorisation correspond au nombre d'occurences placées du nombre</li>
      * </ul>.
      * <u>Exemple :</u> si 3 est placé 4 fois, alors placeableElements[2] = 4.
      *
      * @see GridParsed#getPlaceableNumber()
      */
-    private final Integer[] placeableElements;
+    private final byte[] placeableElements;
+
+    /**
+     * Géométrie de la grille : ligne, colonne et bloc de chaque case.
+     */
+    private final GridGeometry geometry;
+
+    /**
+     * Masques des nombres placés dans chaque ligne, colonne et bloc : bit <code>n - 1</code> pour le nombre
+     * <code>n</code>.
+     */
+    private final int[] lineNumbers;
+    private final int[] columnNumbers;
+    private final int[] boxNumbers;
+
+    /**
+     * Cases où chaque nombre peut encore être placé : bit <code>position % 64</code> de
+     * <code>legal[n - 1][position / 64]</code>.
+     */
+    private final long[][] legal;
+
+    /**
+     * Masques des voisines de chaque case, et de la case elle-même, au même format que les cases légales.
+     */
+    private final long[][] peers;
+
+    /**
+     * Masques des voisines, partagés par toutes les grilles d'un même ordre. Calculés à la première grille de l'ordre.
+     */
+    private static final long[][][] PEERS = new long[GridGeometry.MAX_ORDER + 1][][];
 
     /**
      * Constructeur par défaut d'une grille finie.
@@ -44,8 +71,41 @@ public class GridParsed extends Grid {
      * @see Grid#Grid()
      */
     public GridParsed() {
-        super();
-        placeableElements = new Integer[]{0, 0, 0, 0, 0, 0, 0, 0, 0};
+        this(3);
+    }
+
+    /**
+     * Construit une grille de jeu vide de l'ordre donné.
+     *
+     * @param order l'ordre de la grille (3 pour 9x9, 4 pour 16x16, 5 pour 25x25)
+     * @see Grid#Grid(int, guillaume.sudotris.resources.Solver)
+     */
+    public GridParsed(int order) {
+        super(order, null);
+        geometry = GridGeometry.of(order);
+        placeableElements = new byte[side];
+        lineNumbers = new int[side];
+        columnNumbers = new int[side];
+        boxNumbers = new int[side];
+        legal = new long[side][(geometry.size + 63) / 64];
+        peers = peersOf(geometry);
+        onLoaded();
+    }
+
+    private static long[][] peersOf(GridGeometry geometry) {
+        synchronized (PEERS) {
+            if (PEERS[geometry.order] == null) {
+                final long[][] masks = new long[geometry.size][(geometry.size + 63) / 64];
+                for (int position = 0; position < geometry.size; position++) {
+                    masks[position][position >>> 6] |= 1L << position;
+                    for (int peer : geometry.peers[position]) {
+                        masks[position][peer >>> 6] |= 1L << peer;
+                    }
+                }
+                PEERS[geometry.order] = masks;
+            }
+            return PEERS[geometry.order];
+        }
     }
 
     /**
@@ -58,47 +118,60 @@ public class GridParsed extends Grid {
      */
     @Override
     public boolean isFilled() {
-        for (byte i = 0; i < 9; i++) {
-            for (byte j = 0; j < 9; j++) {
-                if (matrix[i][j].isEmpty()) {
-                    return false;
-                }
+        for (int position = 0; position < cells.length; position++) {
+            if (cells[position] == 0) {
+                return false;
             }
         }
         return true;
     }
 
     /**
-     * Remplit la grille de jeu depuis le fichier de chemin donné. <br>
-     * Cette redéfinition est à utiliser pour la classe GridParsed.
+     * Recompte les occurences placées de chaque nombre, et recalcule les coups légaux, après chaque
+     * (ré)initialisation de la grille.
      *
-     * @param path le chemin (relatif ou absolu) du fichier à parser
+     * @see Grid#onLoaded()
      */
     @Override
-    public void initFromFile(Path path) {
-        try (Stream<String> lines = Files.lines(path)) {
-            final byte[] lineIndex = {0};
-            final byte[] columnIndex = {0};
-
-            lines.forEach(line -> {
-                line.replaceAll("\\s+", "").chars().forEach(letter -> {
-                    final Integer value = Character.getNumericValue(letter);
-                    if (value >= 1 && value <= 9) {
-                        matrix[lineIndex[0]][columnIndex[0]] = new NotEmptyElement(lineIndex[0], columnIndex[0], value);
-                        placeableElements[value - 1] += 1;
-                    } else {
-                        matrix[lineIndex[0]][columnIndex[0]] = new EmptyElement(lineIndex[0], columnIndex[0]);
-                    }
+    protected void onLoaded() {
+        Arrays.fill(placeableElements, (byte) 0);
+        Arrays.fill(lineNumbers, 0);
+        Arrays.fill(columnNumbers, 0);
+        Arrays.fill(boxNumbers, 0);
+        for (long[] words : legal) {
+            Arrays.fill(words, -1L);
+            words[words.length - 1] = -1L >>> (64 * words.length - cells.length);
+        }
 
-                    columnIndex[0]++;
-                });
+        for (int position = 0; position < cells.length; position++) {
+            if (cells[position] != 0) {
+                placeableElements[cells[position] - 1] += 1;
+                mark(position, cells[position]);
+            }
+        }
+    }
+
+    /**
+     * Met à jour les masques après le placement d'un nombre : le nombre n'est plus légal dans les voisines de la case,
+     * et plus aucun nombre n'est légal dans la case.
+     *
+     * @param position la position de la case
+     * @param number   le nombre placé
+     */
+    private void mark(int position, int number) {
+        final int bit = 1 << (number - 1);
+        lineNumbers[geometry.line[position]] |= bit;
+        columnNumbers[geometry.column[position]] |= bit;
+        boxNumbers[geometry.box[position]] |= bit;
 
-                columnIndex[0] = 0;
-                lineIndex[0]++;
-            });
-            lines.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+        final long[] words = legal[number - 1];
+        final long[] mask = peers[position];
+        for (int word = 0; word < words.length; word++) {
+            words[word] &= ~mask[word];
+        }
+        final long cell = ~(1L << position);
+        for (long[] other : legal) {
+            other[position >>> 6] &= cell;
         }
     }
 
@@ -109,14 +182,69 @@ public class GridParsed extends Grid {
      * @throws IllegalArgumentException si un élément existe déjà, ou si l'élément est vide
      */
     public void addElement(Element element) {
-        if (!matrix[element.getLine()][element.getColumn()].isEmpty()) {
+        final int position = element.getLine() * side + element.getColumn();
+        if (cells[position] != 0) {
             throw new IllegalArgumentException("Un élément existe déjà");
         }
         if (element.isEmpty()) {
             throw new IllegalArgumentException("L'élément à ajouter est vide");
         }
-        matrix[element.getLine()][element.getColumn()] = element;
+        cells[position] = (byte) element.getNumber();
         placeableElements[element.getNumber() - 1] += 1;
+        mark(position, element.getNumber());
+    }
+
+    /**
+     * Renvoie les candidats de la case donnée : les nombres absents de sa ligne, de sa colonne et de son bloc.
+     *
+     * @param line   ligne de la case
+     * @param column colonne de la case
+     * @return le masque des candidats (bit <code>n - 1</code> pour le nombre <code>n</code>), 0 si la case est remplie
+     */
+    public int getCandidates(byte line, byte column) {
+        final int position = line * side + column;
+        if (cells[position] != 0) {
+            return 0;
+        }
+        return ~(lineNumbers[line] | columnNumbers[column] | boxNumbers[geometry.box[position]]) & geometry.allNumbers;
+    }
+
+    /**
+     * Indique si le nombre donné peut être placé dans la case donnée sans contredire sa ligne, sa colonne ou son bloc.
+     *
+     * @param line   ligne de la case
+     * @param column colonne de la case
+     * @param number le nombre à placer (1 à <code>side</code>)
+     * @return <code>vrai</code> si la case est vide et le nombre y est légal; <br>
+     * <code>faux</code> sinon
+     */
+    public boolean isLegal(byte line, byte column, int number) {
+        return (getCandidates(line, column) & (1 << (number - 1))) != 0;
+    }
+
+    /**
+     * Renvoie le nombre de cases où le nombre donné peut encore être placé.
+     *
+     * @param number le nombre (1 à <code>side</code>)
+     * @return le nombre de cases légales pour ce nombre
+     */
+    public int countLegalCells(int number) {
+        int count = 0;
+        for (long word : legal[number - 1]) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Renvoie les cases où le nombre donné peut encore être placé, indexées par position
+     * (<code>line * side + column</code>).
+     *
+     * @param number le nombre (1 à <code>side</code>)
+     * @return l'ensemble des positions légales pour ce nombre
+     */
+    public BitSet getLegalCells(int number) {
+        return BitSet.valueOf(legal[number - 1]);
     }
 
     /**
@@ -126,17 +254,18 @@ public class GridParsed extends Grid {
      * @throws IllegalStateException s'il n'y a plus de valeurs à placer
      */
     public int getPlaceableNumber() {
-        List<Integer> pool = new ArrayList<>();
-        for (byte i = 0; i < Sudotris.LINES; i++) {
-            if (placeableElements[i] < 9) {
-                pool.add(i + 1);
+        final byte[] pool = new byte[side];
+        int poolSize = 0;
+        for (byte i = 0; i < side; i++) {
+            if (placeableElements[i] < side) {
+                pool[poolSize++] = (byte) (i + 1);
             }
         }
 
-        if (pool.isEmpty()) {
+        if (poolSize == 0) {
             throw new IllegalStateException("Il n'y a plus de valeur à ajouter");
         }
 
-        return pool.get(ThreadLocalRandom.current().nextInt(pool.size()));
+        return pool[ThreadLocalRandom.current().nextInt(poolSize)];
     }
 }
\ No newline at end of file
@@ -1,6 +1,12 @@
 package guillaume.sudotris.metier.grid;
 
+import guillaume.sudotris.resources.SolveBudget;
+import guillaume.sudotris.resources.SolveStatus;
+import guillaume.sudotris.resources.Solver;
+
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Résolveur d'une grille partielle donnée. Cette classe se comporte comme GridFilled une fois la grille résolue. <br>
@@ -22,6 +28,27 @@ public class GridSolved extends Grid {
         super();
     }
 
+    /**
+     * Construit un résolveur de grille utilisant le moteur de résolution donné.
+     *
+     * @param solver le moteur de résolution à utiliser
+     * @see Grid#Grid(Solver)
+     */
+    public GridSolved(Solver solver) {
+        super(solver);
+    }
+
+    /**
+     * Construit un résolveur de grille de l'ordre donné, utilisant le moteur de résolution donné.
+     *
+     * @param order  l'ordre de la grille (3 pour 9x9, 4 pour 16x16, 5 pour 25x25)
+     * @param solver le moteur de résolution à utiliser, ou <code>null</code> pour le moteur par défaut
+     * @see Grid#Grid(int, Solver)
+     */
+    public GridSolved(int order, Solver solver) {
+        super(order, solver);
+    }
+
     /**
      * Indique si grille de jeu est complètement remplie, en l'occurence dès que la résolution a été effectuée.
      *
@@ -58,4 +85,42 @@ public class GridSolved extends Grid {
         super.initFromGrid(grid);
         this.solveGrid();
     }
+
+    /**
+     * Remplit la grille de jeu depuis le tableau de cases donné, puis la résoud.
+     *
+     * @param cells les cases de la grille de jeu à copier
+     * @see Grid#initFromCells(byte[])
+     */
+    @Override
+    public void initFromCells(byte[] cells) {
+        super.initFromCells(cells);
+        this.solveGrid();
+    }
+
+    /**
+     * Remplit la grille de jeu depuis la grille donnée, et la résoud en tâche de fond. <br>
+     * La grille ne doit être ni lue, ni modifiée, tant que le futur renvoyé n'est pas terminé.
+     *
+     * @param grid     la grille de jeu à copier
+     * @param executor l'exécuteur sur lequel lancer la résolution
+     * @param budget   le budget de la résolution
+     * @return le futur de l'issue de la résolution
+     * @see Grid#solveGridAsync(Executor, SolveBudget)
+     */
+    public CompletableFuture<SolveStatus> initFromGridAsync(Grid grid, Executor executor, SolveBudget budget) {
+        super.initFromGrid(grid);
+        return solveGridAsync(executor, budget);
+    }
+
+    /**
+     * Remplit la grille de jeu avec une solution déjà connue : la grille est alors considérée comme résolue.
+     *
+     * @param solution les cases de la solution
+     * @see Grid#initFromCells(byte[])
+     */
+    public void initFromSolution(byte[] solution) {
+        super.initFromCells(solution);
+        solved = true;
+    }
 }
\ No newline at end of file
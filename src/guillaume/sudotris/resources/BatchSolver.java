@@ -0,0 +1,249 @@
+package guillaume.sudotris.resources;
+
+import guillaume.sudotris.fileio.PuzzleFileReader;
+import guillaume.sudotris.metier.grid.Grid;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Résolution en masse de grilles, hors jeu : régénération des grilles complétées, validation d'un recueil importé... <br>
+ * Les grilles sont lues depuis un fichier au format une grille par ligne (c.f. PuzzleFileReader), par paquets, et chaque paquet est résolu en parallèle sur un ForkJoinPool, avec un moteur de résolution par thread. <br>
+ * Les solutions sont écrites dans l'ordre du fichier d'entrée, une par ligne. Une grille sans solution est recopiée
+ * telle quelle (cases vides à 0); une ligne mal formée est lue comme une grille vide, et écrite comme 81 zéros. <br>
+ * Pour valider un recueil importé, l'unicité de la solution de chaque grille peut aussi être vérifiée, dans la même
+ * recherche que sa résolution : les grilles à solutions multiples sont alors comptées dans le bilan.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see Solver
+ * @since 1.8
+ */
+public class BatchSolver {
+    /**
+     * Nombre de grilles lues, résolues puis écrites ensemble.
+     */
+    private static final int CHUNK_SIZE = 1 << 14;
+    /**
+     * Nombre de grilles en dessous duquel une tâche n'est plus découpée.
+     */
+    private static final int TASK_SIZE = 64;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Solver> solvers;
+    private final boolean checkUniqueness;
+
+    /**
+     * Construit un résolveur en masse sur le pool commun, avec des moteurs DancingLinksSolver.
+     */
+    public BatchSolver() {
+        this(false);
+    }
+
+    /**
+     * Construit un résolveur en masse sur le pool commun, avec des moteurs DancingLinksSolver.
+     *
+     * @param checkUniqueness <code>vrai</code> pour vérifier l'unicité de la solution de chaque grille
+     */
+    public BatchSolver(boolean checkUniqueness) {
+        this(ForkJoinPool.commonPool(), DancingLinksSolver::new, checkUniqueness);
+    }
+
+    /**
+     * Construit un résolveur en masse.
+     *
+     * @param pool            le pool de threads sur lequel résoudre les grilles
+     * @param solverFactory   la fabrique des moteurs de résolution, appelée une fois par thread du pool
+     * @param checkUniqueness <code>vrai</code> pour vérifier l'unicité de la solution de chaque grille
+     */
+    public BatchSolver(ForkJoinPool pool, Supplier<Solver> solverFactory, boolean checkUniqueness) {
+        this.pool = pool;
+        this.solvers = ThreadLocal.withInitial(solverFactory);
+        this.checkUniqueness = checkUniqueness;
+    }
+
+    /**
+     * Résoud toutes les grilles du fichier d'entrée, et écrit leurs solutions dans le fichier de sortie.
+     *
+     * @param input  le fichier des grilles à résoudre, une par ligne
+     * @param output le fichier des solutions, écrasé s'il existe
+     * @return le bilan de la résolution
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public Report solve(Path input, Path output) throws IOException {
+        final long start = System.nanoTime();
+        final byte[] chunk = new byte[CHUNK_SIZE * Grid.SIZE];
+        final boolean[] valid = new boolean[CHUNK_SIZE];
+        final boolean[] solved = new boolean[CHUNK_SIZE];
+        final boolean[] ambiguous = new boolean[CHUNK_SIZE];
+        final byte[] cells = new byte[Grid.SIZE];
+        final byte[] line = new byte[Grid.SIZE + 1];
+        line[Grid.SIZE] = '\n';
+        long nbGrids = 0;
+        long nbFailed = 0;
+        long nbAmbiguous = 0;
+
+        try (PuzzleFileReader reader = new PuzzleFileReader(input);
+             OutputStream writer = new BufferedOutputStream(Files.newOutputStream(output), 1 << 16)) {
+            boolean more;
+            int count = 0;
+
+            do {
+                more = reader.next(cells);
+                if (more) {
+                    // Une grille mal formée est lue vide : elle sera écrite vide (81 zéros), et comptée en échec
+                    valid[count] = reader.isValid();
+                    System.arraycopy(cells, 0, chunk, count * Grid.SIZE, Grid.SIZE);
+                    count++;
+                }
+
+                if (count == CHUNK_SIZE || (!more && count > 0)) {
+                    pool.invoke(new SolveTask(chunk, valid, solved, ambiguous, 0, count));
+
+                    for (int i = 0; i < count; i++) {
+                        for (int position = 0; position < Grid.SIZE; position++) {
+                            line[position] = (byte) ('0' + chunk[i * Grid.SIZE + position]);
+                        }
+                        writer.write(line);
+                        if (!solved[i]) {
+                            nbFailed++;
+                        }
+                        if (ambiguous[i]) {
+                            nbAmbiguous++;
+                        }
+                    }
+                    nbGrids += count;
+                    count = 0;
+                }
+            } while (more);
+        }
+
+        return new Report(nbGrids, nbFailed, nbAmbiguous, System.nanoTime() - start);
+    }
+
+    /**
+     * Tâche de résolution d'une tranche de grilles du paquet courant : les grilles bien formées sont résolues en place.
+     */
+    private final class SolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] chunk;
+        private final boolean[] valid;
+        private final boolean[] solved;
+        private final boolean[] ambiguous;
+        private final int from;
+        private final int to;
+
+        SolveTask(byte[] chunk, boolean[] valid, boolean[] solved, boolean[] ambiguous, int from, int to) {
+            this.chunk = chunk;
+            this.valid = valid;
+            this.solved = solved;
+            this.ambiguous = ambiguous;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_SIZE) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new SolveTask(chunk, valid, solved, ambiguous, from, middle),
+                        new SolveTask(chunk, valid, solved, ambiguous, middle, to));
+                return;
+            }
+
+            final Solver solver = solvers.get();
+            final byte[] cells = new byte[Grid.SIZE];
+            for (int i = from; i < to; i++) {
+                ambiguous[i] = false;
+                if (!valid[i]) {
+                    solved[i] = false;
+                    continue;
+                }
+                System.arraycopy(chunk, i * Grid.SIZE, cells, 0, Grid.SIZE);
+                if (checkUniqueness) {
+                    final int count = solver.solveAndCount(cells, 2);
+                    solved[i] = count > 0;
+                    ambiguous[i] = count > 1;
+                } else {
+                    solved[i] = solver.solve(cells);
+                }
+                System.arraycopy(cells, 0, chunk, i * Grid.SIZE, Grid.SIZE);
+            }
+        }
+    }
+
+    /**
+     * Bilan d'une résolution en masse.
+     */
+    public static final class Report {
+        private final long nbGrids;
+        private final long nbFailed;
+        private final long nbAmbiguous;
+        private final long nanos;
+
+        Report(long nbGrids, long nbFailed, long nbAmbiguous, long nanos) {
+            this.nbGrids = nbGrids;
+            this.nbFailed = nbFailed;
+            this.nbAmbiguous = nbAmbiguous;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Renvoie le nombre de grilles lues.
+         *
+         * @return le nombre de grilles lues
+         */
+        public long getNbGrids() {
+            return nbGrids;
+        }
+
+        /**
+         * Renvoie le nombre de grilles invalides ou sans solution.
+         *
+         * @return le nombre de grilles non résolues
+         */
+        public long getNbFailed() {
+            return nbFailed;
+        }
+
+        /**
+         * Renvoie le nombre de grilles à solutions multiples (toujours 0 si l'unicité n'est pas vérifiée).
+         *
+         * @return le nombre de grilles ambiguës
+         */
+        public long getNbAmbiguous() {
+            return nbAmbiguous;
+        }
+
+        /**
+         * Renvoie la durée totale de la résolution, lecture et écriture comprises.
+         *
+         * @return la durée en nanosecondes
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Renvoie le débit de la résolution.
+         *
+         * @return le nombre de grilles traitées par seconde
+         */
+        public double getGridsPerSecond() {
+            return nanos == 0 ? 0 : nbGrids * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d grilles (%d non résolues, %d ambiguës) en %.3f s : %.0f grilles/s",
+                    nbGrids, nbFailed, nbAmbiguous, nanos / 1e9, getGridsPerSecond());
+        }
+    }
+}
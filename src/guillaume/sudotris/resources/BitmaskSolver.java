@@ -0,0 +1,228 @@
+package guillaume.sudotris.resources;
+
+/**
+ * Résolveur de grille par backtracking, basé sur des masques de bits. <br>
+ * Chaque ligne, colonne et bloc 3x3 maintient un masque de 9 bits des chiffres déjà placés :
+ * les candidats d'une case s'obtiennent alors en une seule opération (<code>~(ligne | colonne | bloc)</code>),
+ * et seuls les bits à 1 sont parcourus. <br>
+ * L'instance est réutilisable d'une grille à l'autre, mais n'est pas thread-safe.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see Solver
+ * @see SudokuSolver
+ * @since 1.8
+ */
+public class BitmaskSolver implements Solver {
+    /**
+     * Masque des 9 chiffres : bit <code>n - 1</code> pour le chiffre <code>n</code>.
+     */
+    private static final int ALL_NUMBERS = 0x1FF;
+
+    /**
+     * Ligne, colonne et bloc 3x3 de chaque position (0 -> 80).
+     */
+    private static final GridGeometry GEOMETRY = GridGeometry.of(3);
+    private static final int[] LINE = GEOMETRY.line;
+    private static final int[] COLUMN = GEOMETRY.column;
+    private static final int[] BOX = GEOMETRY.box;
+
+    private final byte[] cells = new byte[81];
+    private final int[] lines = new int[9];
+    private final int[] columns = new int[9];
+    private final int[] boxes = new int[9];
+
+    /**
+     * Positions des cases vides, dans l'ordre de parcours.
+     */
+    private final byte[] empties = new byte[81];
+    private int nbEmpties;
+
+    /**
+     * Première solution trouvée.
+     */
+    private final byte[] solution = new byte[81];
+
+    /**
+     * Nombre de solutions trouvées, et nombre au-delà duquel la recherche s'arrête.
+     */
+    private int nbSolutions;
+    private int limit;
+
+    /**
+     * Budget de la recherche en cours, et indicateur de son épuisement.
+     */
+    private SolveBudget budget;
+    private boolean interrupted;
+
+    /**
+     * Compteurs de la recherche en cours, et statistiques de la dernière recherche.
+     */
+    private long nodes;
+    private long backtracks;
+    private int maxDepth;
+    private long propagations;
+    private SolverStatistics statistics = SolverStatistics.NONE;
+    private final SolverMetrics metrics = SolverMetrics.forEngine("BitmaskSolver");
+
+    @Override
+    public boolean solve(byte[] grid) {
+        return solve(grid, SolveBudget.UNBOUNDED) == SolveStatus.SOLVED;
+    }
+
+    @Override
+    public SolveStatus solve(byte[] grid, SolveBudget budget) {
+        if (count(grid, 1, budget) == 0) {
+            return interrupted ? budget.interruption() : SolveStatus.NO_SOLUTION;
+        }
+        System.arraycopy(solution, 0, grid, 0, 81);
+        return SolveStatus.SOLVED;
+    }
+
+    @Override
+    public int countSolutions(byte[] grid, int limit) {
+        return count(grid, limit, SolveBudget.UNBOUNDED);
+    }
+
+    @Override
+    public int solveAndCount(byte[] grid, int limit) {
+        final int count = count(grid, limit, SolveBudget.UNBOUNDED);
+        if (count > 0) {
+            System.arraycopy(solution, 0, grid, 0, 81);
+        }
+        return count;
+    }
+
+    /**
+     * Compte les solutions de la grille donnée, dans la limite du budget donné.
+     * La première solution trouvée est conservée dans <code>solution</code>.
+     *
+     * @param grid   les 81 cases de la grille
+     * @param limit  le nombre de solutions au-delà duquel la recherche s'arrête
+     * @param budget le budget de la recherche
+     * @return le nombre de solutions trouvées, au plus <code>limit</code>
+     */
+    private int count(byte[] grid, int limit, SolveBudget budget) {
+        final long start = System.nanoTime();
+        final long cpuStart = SolverStatistics.currentCpuTime();
+        this.nbSolutions = 0;
+        this.limit = limit;
+        this.budget = budget;
+        this.interrupted = false;
+        this.nodes = 0;
+        this.backtracks = 0;
+        this.maxDepth = 0;
+        this.propagations = 0;
+
+        if (load(grid)) {
+            search(0);
+        }
+
+        final long cpuEnd = SolverStatistics.currentCpuTime();
+        statistics = new SolverStatistics(nodes, backtracks, maxDepth, propagations, System.nanoTime() - start,
+                cpuStart < 0 ? -1 : cpuEnd - cpuStart);
+        metrics.record(statistics);
+        return nbSolutions;
+    }
+
+    @Override
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Charge la grille donnée et initialise les masques.
+     *
+     * @param grid les 81 cases de la grille
+     * @return <code>vrai</code> si la grille est cohérente; <br>
+     * <code>faux</code> si un chiffre est hors limites, ou apparaît deux fois dans une même ligne, colonne ou bloc
+     */
+    private boolean load(byte[] grid) {
+        for (int i = 0; i < 9; i++) {
+            lines[i] = 0;
+            columns[i] = 0;
+            boxes[i] = 0;
+        }
+        nbEmpties = 0;
+
+        for (int position = 0; position < 81; position++) {
+            final byte number = grid[position];
+            cells[position] = number;
+
+            if (number == 0) {
+                empties[nbEmpties++] = (byte) position;
+                continue;
+            }
+            if (number < 0 || number > 9) {
+                return false;
+            }
+
+            final int bit = 1 << (number - 1);
+            final int line = LINE[position];
+            final int column = COLUMN[position];
+            final int box = BOX[position];
+            if (((lines[line] | columns[column] | boxes[box]) & bit) != 0) {
+                return false;
+            }
+            lines[line] |= bit;
+            columns[column] |= bit;
+            boxes[box] |= bit;
+            propagations++;
+        }
+        return true;
+    }
+
+    /**
+     * Algorithme de résolution : cherche récursivement un chiffre pour la case vide d'index donné,
+     * en ne parcourant que ses candidats.
+     *
+     * @param index l'index, dans la liste des cases vides, de la case à remplir
+     * @return <code>vrai</code> lorsque la limite du nombre de solutions est atteinte, ou le budget épuisé; <br>
+     * <code>faux</code> sinon
+     */
+    private boolean search(int index) {
+        if ((nodes & SolveBudget.CHECK_INTERVAL) == 0 && budget.isExhausted(nodes)) {
+            interrupted = true;
+            return true;
+        }
+        if (index > maxDepth) {
+            maxDepth = index;
+        }
+        if (index == nbEmpties) {
+            if (nbSolutions == 0) {
+                System.arraycopy(cells, 0, solution, 0, 81);
+            }
+            return ++nbSolutions >= limit;
+        }
+
+        final int position = empties[index];
+        final int line = LINE[position];
+        final int column = COLUMN[position];
+        final int box = BOX[position];
+
+        int candidates = ~(lines[line] | columns[column] | boxes[box]) & ALL_NUMBERS;
+        while (candidates != 0) {
+            final int bit = candidates & -candidates;
+            candidates ^= bit;
+
+            lines[line] |= bit;
+            columns[column] |= bit;
+            boxes[box] |= bit;
+            cells[position] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+            nodes++;
+            propagations++;
+
+            if (search(index + 1)) {
+                return true;
+            }
+
+            lines[line] ^= bit;
+            columns[column] ^= bit;
+            boxes[box] ^= bit;
+        }
+
+        cells[position] = 0;
+        backtracks++;
+        return false;
+    }
+}
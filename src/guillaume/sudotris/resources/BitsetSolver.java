@@ -0,0 +1,327 @@
+package guillaume.sudotris.resources;
+
+/**
+ * Résolveur de grilles de tout ordre (9x9, 16x16, 25x25...), par backtracking sur des masques de bits. <br>
+ * Chaque ligne, colonne et bloc maintient le masque des nombres déjà placés, dans un seul entier : les candidats
+ * d'une case s'obtiennent en une opération, et se comptent en une instruction (<code>Integer.bitCount</code>). <br>
+ * À chaque étape, la case vide ayant le moins de candidats est choisie (heuristique MRV) : une case sans candidat
+ * coupe immédiatement la branche, et une case à un seul candidat est remplie sans ramification. Faute de singleton
+ * nu, les unités sont parcourues à la recherche d'un singleton caché (nombre possible dans une seule case de l'unité),
+ * lui aussi placé sans ramification, ou d'un nombre impossible partout dans l'unité, qui coupe la branche. <br>
+ * Une grille de <code>side x side</code> cases est représentée par un tableau de <code>side²</code> cases
+ * lu ligne par ligne, où 0 représente une case vide. L'instance est réutilisable d'une grille à l'autre (du même
+ * ordre), mais n'est pas thread-safe.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see GridGeometry
+ * @see BitmaskSolver
+ * @since 1.8
+ */
+public class BitsetSolver implements Solver {
+    private final GridGeometry geometry;
+
+    private final byte[] cells;
+    private final int[] lines;
+    private final int[] columns;
+    private final int[] boxes;
+
+    /**
+     * Positions des cases vides : celles d'index inférieur à la profondeur courante sont remplies.
+     */
+    private final int[] empties;
+    private int nbEmpties;
+
+    /**
+     * Index de chaque case vide dans <code>empties</code>.
+     */
+    private final int[] indexes;
+
+    /**
+     * Première solution trouvée.
+     */
+    private final byte[] solution;
+
+    private int nbSolutions;
+    private int limit;
+
+    private SolveBudget budget;
+    private boolean interrupted;
+
+    /**
+     * Compteurs de la recherche en cours, et statistiques de la dernière recherche.
+     */
+    private long nodes;
+    private long backtracks;
+    private int maxDepth;
+    private long propagations;
+    private SolverStatistics statistics = SolverStatistics.NONE;
+    private final SolverMetrics metrics = SolverMetrics.forEngine("BitsetSolver");
+
+    /**
+     * Construit un résolveur de grilles de l'ordre donné.
+     *
+     * @param order l'ordre des grilles (3 pour 9x9, 4 pour 16x16, 5 pour 25x25)
+     * @see GridGeometry#of(int)
+     */
+    public BitsetSolver(int order) {
+        this.geometry = GridGeometry.of(order);
+        this.cells = new byte[geometry.size];
+        this.lines = new int[geometry.side];
+        this.columns = new int[geometry.side];
+        this.boxes = new int[geometry.side];
+        this.empties = new int[geometry.size];
+        this.indexes = new int[geometry.size];
+        this.solution = new byte[geometry.size];
+    }
+
+    @Override
+    public boolean solve(byte[] grid) {
+        return solve(grid, SolveBudget.UNBOUNDED) == SolveStatus.SOLVED;
+    }
+
+    @Override
+    public SolveStatus solve(byte[] grid, SolveBudget budget) {
+        if (count(grid, 1, budget) == 0) {
+            return interrupted ? budget.interruption() : SolveStatus.NO_SOLUTION;
+        }
+        System.arraycopy(solution, 0, grid, 0, geometry.size);
+        return SolveStatus.SOLVED;
+    }
+
+    @Override
+    public int countSolutions(byte[] grid, int limit) {
+        return count(grid, limit, SolveBudget.UNBOUNDED);
+    }
+
+    @Override
+    public int solveAndCount(byte[] grid, int limit) {
+        final int count = count(grid, limit, SolveBudget.UNBOUNDED);
+        if (count > 0) {
+            System.arraycopy(solution, 0, grid, 0, geometry.size);
+        }
+        return count;
+    }
+
+    @Override
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Compte les solutions de la grille donnée, dans la limite du budget donné.
+     * La première solution trouvée est conservée dans <code>solution</code>.
+     *
+     * @param grid   les cases de la grille
+     * @param limit  le nombre de solutions au-delà duquel la recherche s'arrête
+     * @param budget le budget de la recherche
+     * @return le nombre de solutions trouvées, au plus <code>limit</code>
+     * @throws IllegalArgumentException si la grille n'a pas la taille des grilles de ce résolveur
+     */
+    private int count(byte[] grid, int limit, SolveBudget budget) {
+        if (grid.length != geometry.size) {
+            throw new IllegalArgumentException("La grille doit comporter " + geometry.size + " cases");
+        }
+
+        final long start = System.nanoTime();
+        final long cpuStart = SolverStatistics.currentCpuTime();
+        this.nbSolutions = 0;
+        this.limit = limit;
+        this.budget = budget;
+        this.interrupted = false;
+        this.nodes = 0;
+        this.backtracks = 0;
+        this.maxDepth = 0;
+        this.propagations = 0;
+
+        if (load(grid)) {
+            search(0);
+        }
+
+        final long cpuEnd = SolverStatistics.currentCpuTime();
+        statistics = new SolverStatistics(nodes, backtracks, maxDepth, propagations, System.nanoTime() - start,
+                cpuStart < 0 ? -1 : cpuEnd - cpuStart);
+        metrics.record(statistics);
+        return nbSolutions;
+    }
+
+    /**
+     * Charge la grille donnée et initialise les masques.
+     *
+     * @param grid les cases de la grille
+     * @return <code>vrai</code> si la grille est cohérente; <br>
+     * <code>faux</code> si un nombre est hors limites, ou apparaît deux fois dans une même ligne, colonne ou bloc
+     */
+    private boolean load(byte[] grid) {
+        for (int i = 0; i < geometry.side; i++) {
+            lines[i] = 0;
+            columns[i] = 0;
+            boxes[i] = 0;
+        }
+        nbEmpties = 0;
+
+        for (int position = 0; position < geometry.size; position++) {
+            final int number = grid[position];
+            cells[position] = (byte) number;
+
+            if (number == 0) {
+                indexes[position] = nbEmpties;
+                empties[nbEmpties++] = position;
+                continue;
+            }
+            if (number < 0 || number > geometry.side) {
+                return false;
+            }
+
+            final int bit = 1 << (number - 1);
+            if (((lines[geometry.line[position]] | columns[geometry.column[position]]
+                    | boxes[geometry.box[position]]) & bit) != 0) {
+                return false;
+            }
+            place(position, bit);
+        }
+        return true;
+    }
+
+    private int candidates(int position) {
+        return ~(lines[geometry.line[position]] | columns[geometry.column[position]] | boxes[geometry.box[position]])
+                & geometry.allNumbers;
+    }
+
+    private void place(int position, int bit) {
+        lines[geometry.line[position]] |= bit;
+        columns[geometry.column[position]] |= bit;
+        boxes[geometry.box[position]] |= bit;
+        cells[position] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+        propagations++;
+    }
+
+    private void remove(int position, int bit) {
+        lines[geometry.line[position]] ^= bit;
+        columns[geometry.column[position]] ^= bit;
+        boxes[geometry.box[position]] ^= bit;
+        cells[position] = 0;
+    }
+
+    /**
+     * Algorithme de résolution : choisit, parmi les cases vides restantes, celle ayant le moins de candidats,
+     * ou à défaut un singleton caché, et essaie chacun des candidats retenus.
+     *
+     * @param depth le nombre de cases vides déjà remplies
+     * @return <code>vrai</code> lorsque la limite du nombre de solutions est atteinte, ou le budget épuisé; <br>
+     * <code>faux</code> sinon
+     */
+    private boolean search(int depth) {
+        if ((nodes & SolveBudget.CHECK_INTERVAL) == 0 && budget.isExhausted(nodes)) {
+            interrupted = true;
+            return true;
+        }
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+        if (depth == nbEmpties) {
+            if (nbSolutions == 0) {
+                System.arraycopy(cells, 0, solution, 0, geometry.size);
+            }
+            return ++nbSolutions >= limit;
+        }
+
+        // MRV : case vide ayant le moins de candidats, échangée en position courante
+        int chosen = depth;
+        int best = Integer.MAX_VALUE;
+        for (int i = depth; i < nbEmpties; i++) {
+            final int count = Integer.bitCount(candidates(empties[i]));
+            if (count < best) {
+                chosen = i;
+                best = count;
+                if (count <= 1) {
+                    break;
+                }
+            }
+        }
+        if (best == 0) {
+            backtracks++;
+            return false;
+        }
+
+        int position = empties[chosen];
+        int candidates = candidates(position);
+        if (best > 1) {
+            final int forced = hiddenSingle();
+            if (forced < 0) {
+                backtracks++;
+                return false;
+            }
+            if (forced < geometry.size * geometry.side) {
+                position = forced / geometry.side;
+                candidates = 1 << (forced % geometry.side);
+                chosen = indexes[position];
+            }
+        }
+        swap(chosen, depth);
+
+        boolean stop = false;
+        while (candidates != 0 && !stop) {
+            final int bit = candidates & -candidates;
+            candidates ^= bit;
+
+            place(position, bit);
+            nodes++;
+            stop = search(depth + 1);
+            remove(position, bit);
+        }
+
+        swap(depth, chosen);
+        if (!stop) {
+            backtracks++;
+        }
+        return stop;
+    }
+
+    /**
+     * Cherche, dans chaque unité, un nombre qui n'y est possible que dans une seule case vide.
+     *
+     * @return <code>position * side + (nombre - 1)</code> du premier singleton caché trouvé; <br>
+     * <code>size * side</code> s'il n'y en a aucun; <br>
+     * -1 si un nombre manquant d'une unité n'y est possible nulle part
+     */
+    private int hiddenSingle() {
+        final int side = geometry.side;
+        for (int unit = 0; unit < geometry.units.length; unit++) {
+            final int[] positions = geometry.units[unit];
+            final int placed = unit < side ? lines[unit]
+                    : unit < 2 * side ? columns[unit - side] : boxes[unit - 2 * side];
+            int once = 0;
+            int twice = 0;
+            for (int position : positions) {
+                if (cells[position] == 0) {
+                    final int candidates = candidates(position);
+                    twice |= once & candidates;
+                    once |= candidates;
+                }
+            }
+            if ((once | placed) != geometry.allNumbers) {
+                return -1;
+            }
+            final int single = once & ~twice;
+            if (single != 0) {
+                final int bit = single & -single;
+                for (int position : positions) {
+                    if (cells[position] == 0 && (candidates(position) & bit) != 0) {
+                        return position * side + Integer.numberOfTrailingZeros(bit);
+                    }
+                }
+            }
+        }
+        return geometry.size * side;
+    }
+
+    private void swap(int i, int j) {
+        final int first = empties[i];
+        final int second = empties[j];
+        empties[i] = second;
+        empties[j] = first;
+        indexes[second] = i;
+        indexes[first] = j;
+    }
+}
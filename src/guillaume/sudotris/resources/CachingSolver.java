@@ -0,0 +1,85 @@
+package guillaume.sudotris.resources;
+
+/**
+ * Moteur de résolution qui consulte un cache de solutions avant de déléguer la résolution à un autre moteur. <br>
+ * Une grille déjà résolue, ou équivalente à une grille déjà résolue, est ainsi résolue en une simple recherche. <br>
+ * Les instances sont thread-safe si le moteur délégué l'est (par exemple un PooledSolver).
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SolutionCache
+ * @since 1.8
+ */
+public class CachingSolver implements Solver {
+    private final Solver delegate;
+    private final SolutionCache cache;
+    private volatile SolverStatistics statistics = SolverStatistics.NONE;
+
+    /**
+     * Construit un moteur de résolution avec cache.
+     *
+     * @param delegate le moteur utilisé lorsque la solution n'est pas en cache
+     * @param cache    le cache des solutions
+     */
+    public CachingSolver(Solver delegate, SolutionCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public boolean solve(byte[] grid) {
+        return solve(grid, SolveBudget.UNBOUNDED) == SolveStatus.SOLVED;
+    }
+
+    @Override
+    public SolveStatus solve(byte[] grid, SolveBudget budget) {
+        final long start = System.nanoTime();
+        final CanonicalForm form = CanonicalForm.of(grid);
+        if (cache.get(form, grid)) {
+            statistics = new SolverStatistics(0, 0, 0, 0, System.nanoTime() - start, -1);
+            return SolveStatus.SOLVED;
+        }
+
+        final SolveStatus status = delegate.solve(grid, budget);
+        statistics = delegate.getStatistics();
+        if (status == SolveStatus.SOLVED) {
+            cache.put(form, grid);
+        }
+        return status;
+    }
+
+    @Override
+    public int countSolutions(byte[] grid, int limit) {
+        final int count = delegate.countSolutions(grid, limit);
+        statistics = delegate.getStatistics();
+        return count;
+    }
+
+    /**
+     * Compte les solutions par le moteur délégué, sans consulter le cache (qui ne dit rien de l'unicité), et y ajoute
+     * la solution trouvée.
+     *
+     * @see Solver#solveAndCount(byte[], int)
+     */
+    @Override
+    public int solveAndCount(byte[] grid, int limit) {
+        final CanonicalForm form = CanonicalForm.of(grid);
+        final int count = delegate.solveAndCount(grid, limit);
+        statistics = delegate.getStatistics();
+        if (count > 0) {
+            cache.put(form, grid);
+        }
+        return count;
+    }
+
+    /**
+     * Renvoie les statistiques de la dernière recherche : celles du moteur délégué, ou une recherche sans nœud
+     * (durée de la consultation du cache) lorsque la solution était en cache.
+     *
+     * @return les statistiques de la dernière recherche
+     */
+    @Override
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+}
@@ -0,0 +1,168 @@
+package guillaume.sudotris.resources;
+
+import guillaume.sudotris.metier.grid.Grid;
+
+/**
+ * Forme canonique d'une grille : représentant commun de toutes les grilles équivalentes par
+ * renommage des chiffres, permutation des bandes (groupes de 3 lignes), permutation des piles (groupes de 3 colonnes)
+ * et transposition. <br>
+ * Parmi les 72 transformations géométriques, la forme retenue est la plus petite dans l'ordre lexicographique, une fois
+ * les chiffres renumérotés dans leur ordre d'apparition. La transformation est conservée, ce qui permet de passer
+ * une solution de la grille d'origine à la forme canonique, et inversement.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SolutionCache
+ * @since 1.8
+ */
+public final class CanonicalForm {
+    private static final int[][] PERMUTATIONS = {
+            {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+    };
+
+    private final byte[] cells = new byte[Grid.SIZE];
+    /**
+     * Position, dans la grille d'origine, de chaque case de la forme canonique.
+     */
+    private final byte[] positions = new byte[Grid.SIZE];
+    /**
+     * Chiffre canonique de chaque chiffre d'origine (index 0 à 9, 0 pour une case vide).
+     */
+    private final byte[] numbers = new byte[10];
+    /**
+     * Chiffre d'origine de chaque chiffre canonique.
+     */
+    private final byte[] inverse = new byte[10];
+
+    private CanonicalForm() {
+    }
+
+    /**
+     * Calcule la forme canonique de la grille donnée.
+     *
+     * @param grid les 81 cases de la grille
+     * @return la forme canonique de la grille
+     */
+    public static CanonicalForm of(byte[] grid) {
+        final CanonicalForm form = new CanonicalForm();
+        final byte[] candidate = new byte[Grid.SIZE];
+        final byte[] positions = new byte[Grid.SIZE];
+        final byte[] numbers = new byte[10];
+        boolean first = true;
+
+        for (int transpose = 0; transpose < 2; transpose++) {
+            for (int[] bands : PERMUTATIONS) {
+                for (int[] stacks : PERMUTATIONS) {
+                    for (int line = 0; line < 9; line++) {
+                        for (int column = 0; column < 9; column++) {
+                            final int sourceLine = bands[line / 3] * 3 + line % 3;
+                            final int sourceColumn = stacks[column / 3] * 3 + column % 3;
+                            positions[line * 9 + column] = (byte) (transpose == 0
+                                    ? sourceLine * 9 + sourceColumn
+                                    : sourceColumn * 9 + sourceLine);
+                        }
+                    }
+
+                    if (relabel(grid, positions, numbers, candidate, first ? null : form.cells)) {
+                        System.arraycopy(candidate, 0, form.cells, 0, Grid.SIZE);
+                        System.arraycopy(positions, 0, form.positions, 0, Grid.SIZE);
+                        System.arraycopy(numbers, 0, form.numbers, 0, 10);
+                        first = false;
+                    }
+                }
+            }
+        }
+
+        form.completeNumbers();
+        return form;
+    }
+
+    /**
+     * Applique une transformation à la grille, renumérote ses chiffres dans leur ordre d'apparition,
+     * et la compare à la meilleure forme connue.
+     *
+     * @param grid      la grille d'origine
+     * @param positions la transformation à appliquer
+     * @param numbers   la renumérotation, calculée par cette méthode
+     * @param candidate la grille transformée, calculée par cette méthode
+     * @param best      la meilleure forme connue, ou <code>null</code> s'il n'y en a pas encore
+     * @return <code>vrai</code> si la grille transformée est strictement plus petite que la meilleure forme; <br>
+     * <code>faux</code> sinon (le calcul est interrompu dès qu'elle est plus grande)
+     */
+    private static boolean relabel(byte[] grid, byte[] positions, byte[] numbers, byte[] candidate, byte[] best) {
+        for (int i = 0; i < 10; i++) {
+            numbers[i] = 0;
+        }
+        byte next = 1;
+        boolean smaller = best == null;
+
+        for (int position = 0; position < Grid.SIZE; position++) {
+            final int number = grid[positions[position]];
+            if (number != 0 && numbers[number] == 0) {
+                numbers[number] = next++;
+            }
+            candidate[position] = numbers[number];
+
+            if (!smaller) {
+                if (candidate[position] > best[position]) {
+                    return false;
+                }
+                smaller = candidate[position] < best[position];
+            }
+        }
+        return smaller;
+    }
+
+    /**
+     * Complète la renumérotation avec les chiffres absents de la grille, dans l'ordre croissant,
+     * puis calcule la renumérotation inverse.
+     */
+    private void completeNumbers() {
+        byte next = 1;
+        for (int number = 1; number <= 9; number++) {
+            if (numbers[number] >= next) {
+                next = (byte) (numbers[number] + 1);
+            }
+        }
+        for (int number = 1; number <= 9; number++) {
+            if (numbers[number] == 0) {
+                numbers[number] = next++;
+            }
+            inverse[numbers[number]] = (byte) number;
+        }
+    }
+
+    /**
+     * Renvoie les cases de la forme canonique. Le tableau renvoyé ne doit pas être modifié.
+     *
+     * @return les 81 cases de la forme canonique
+     */
+    public byte[] getCells() {
+        return cells;
+    }
+
+    /**
+     * Applique la transformation de cette forme à une grille de même origine (par exemple sa solution).
+     *
+     * @param grid      les cases de la grille d'origine
+     * @param canonical les cases transformées, à remplir
+     */
+    public void toCanonical(byte[] grid, byte[] canonical) {
+        for (int position = 0; position < Grid.SIZE; position++) {
+            canonical[position] = numbers[grid[positions[position]]];
+        }
+    }
+
+    /**
+     * Applique la transformation inverse de cette forme : d'une grille canonique (par exemple une solution en cache),
+     * vers la grille d'origine.
+     *
+     * @param canonical les cases canoniques
+     * @param grid      les cases de la grille d'origine, à remplir
+     */
+    public void fromCanonical(byte[] canonical, byte[] grid) {
+        for (int position = 0; position < Grid.SIZE; position++) {
+            grid[positions[position]] = inverse[canonical[position]];
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package guillaume.sudotris.resources;
+
+/**
+ * Résolveur de grille par couverture exacte : algorithme X de Knuth, implémenté avec les "Dancing Links". <br>
+ * Le sudoku est modélisé par une matrice de 729 lignes (case x chiffre) et 324 colonnes de contraintes :
+ * <ul>
+ * <li>chaque case contient un chiffre (81 colonnes)</li>
+ * <li>chaque ligne contient chaque chiffre (81 colonnes)</li>
+ * <li>chaque colonne contient chaque chiffre (81 colonnes)</li>
+ * <li>chaque bloc contient chaque chiffre (81 colonnes)</li>
+ * </ul>.
+ * Les noeuds sont stockés dans des tableaux construits une seule fois, puis réutilisés d'une grille à l'autre :
+ * chaque résolution restaure la matrice dans son état initial. <br>
+ * L'heuristique de choix de la colonne la moins remplie rend l'algorithme insensible aux grilles construites
+ * pour piéger un backtracking dans l'ordre des cases.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see Solver
+ * @since 1.8
+ */
+public class DancingLinksSolver implements Solver {
+    private static final int NB_COLUMNS = 324;
+    private static final int NB_ROWS = 729;
+    private static final int ROOT = 0;
+    private static final int NB_NODES = 1 + NB_COLUMNS + NB_ROWS * 4;
+
+    private final int[] left = new int[NB_NODES];
+    private final int[] right = new int[NB_NODES];
+    private final int[] up = new int[NB_NODES];
+    private final int[] down = new int[NB_NODES];
+    /**
+     * En-tête de colonne de chaque noeud.
+     */
+    private final int[] header = new int[NB_NODES];
+    /**
+     * Ligne de la matrice (<code>position * 9 + chiffre - 1</code>) de chaque noeud.
+     */
+    private final int[] row = new int[NB_NODES];
+    /**
+     * Nombre de noeuds de chaque colonne, indexé par l'en-tête.
+     */
+    private final int[] size = new int[NB_NODES];
+    /**
+     * Premier noeud de chaque ligne de la matrice.
+     */
+    private final int[] rowStart = new int[NB_ROWS];
+
+    /**
+     * Pile des noeuds choisis pendant la recherche.
+     */
+    private final int[] stack = new int[81];
+    private final int[] solution = new int[81];
+    private int solutionLength;
+
+    /**
+     * Nombre de solutions trouvées, et nombre au-delà duquel la recherche s'arrête.
+     */
+    private int nbSolutions;
+    private int limit;
+
+    /**
+     * Budget de la recherche en cours, et indicateur de son épuisement.
+     */
+    private SolveBudget budget;
+    private boolean interrupted;
+
+    /**
+     * Compteurs de la recherche en cours, et statistiques de la dernière recherche.
+     */
+    private long nodes;
+    private long backtracks;
+    private int maxDepth;
+    private long propagations;
+    private SolverStatistics statistics = SolverStatistics.NONE;
+    private final SolverMetrics metrics = SolverMetrics.forEngine("DancingLinksSolver");
+
+    /**
+     * Premier noeud des lignes sélectionnées par l'énoncé.
+     */
+    private final int[] given = new int[81];
+
+    /**
+     * Construit la matrice de couverture exacte.
+     */
+    public DancingLinksSolver() {
+        for (int column = 0; column <= NB_COLUMNS; column++) {
+            left[column] = column == 0 ? NB_COLUMNS : column - 1;
+            right[column] = column == NB_COLUMNS ? 0 : column + 1;
+            up[column] = column;
+            down[column] = column;
+            header[column] = column;
+        }
+
+        int node = NB_COLUMNS + 1;
+        for (int position = 0; position < 81; position++) {
+            final int line = position / 9;
+            final int column = position % 9;
+            final int box = (line / 3) * 3 + column / 3;
+
+            for (int number = 0; number < 9; number++) {
+                final int matrixRow = position * 9 + number;
+                final int[] columns = {
+                        1 + position,
+                        1 + 81 + line * 9 + number,
+                        1 + 162 + column * 9 + number,
+                        1 + 243 + box * 9 + number
+                };
+
+                rowStart[matrixRow] = node;
+                for (int i = 0; i < 4; i++) {
+                    final int n = node + i;
+                    final int c = columns[i];
+
+                    header[n] = c;
+                    row[n] = matrixRow;
+                    left[n] = node + (i + 3) % 4;
+                    right[n] = node + (i + 1) % 4;
+
+                    up[n] = up[c];
+                    down[n] = c;
+                    down[up[c]] = n;
+                    up[c] = n;
+                    size[c]++;
+                }
+                node += 4;
+            }
+        }
+    }
+
+    @Override
+    public boolean solve(byte[] grid) {
+        return solve(grid, SolveBudget.UNBOUNDED) == SolveStatus.SOLVED;
+    }
+
+    @Override
+    public SolveStatus solve(byte[] grid, SolveBudget budget) {
+        if (count(grid, 1, budget) == 0) {
+            return interrupted ? budget.interruption() : SolveStatus.NO_SOLUTION;
+        }
+        copySolution(grid);
+        return SolveStatus.SOLVED;
+    }
+
+    @Override
+    public int countSolutions(byte[] grid, int limit) {
+        return count(grid, limit, SolveBudget.UNBOUNDED);
+    }
+
+    @Override
+    public int solveAndCount(byte[] grid, int limit) {
+        final int count = count(grid, limit, SolveBudget.UNBOUNDED);
+        if (count > 0) {
+            copySolution(grid);
+        }
+        return count;
+    }
+
+    /**
+     * Écrit la première solution trouvée par la dernière recherche dans la grille donnée.
+     *
+     * @param grid les 81 cases de la grille
+     */
+    void copySolution(byte[] grid) {
+        for (int i = 0; i < solutionLength; i++) {
+            grid[solution[i] / 9] = (byte) (solution[i] % 9 + 1);
+        }
+    }
+
+    /**
+     * Sélectionne les lignes données par l'énoncé, puis lance la recherche. <br>
+     * La première solution trouvée est conservée dans <code>solution</code>.
+     *
+     * @param grid   les 81 cases de la grille
+     * @param limit  le nombre de solutions au-delà duquel la recherche s'arrête
+     * @param budget le budget de la recherche
+     * @return le nombre de solutions trouvées, au plus <code>limit</code>
+     */
+    int count(byte[] grid, int limit, SolveBudget budget) {
+        final long start = System.nanoTime();
+        final long cpuStart = SolverStatistics.currentCpuTime();
+        this.budget = budget;
+        this.interrupted = false;
+        nodes = 0;
+        backtracks = 0;
+        maxDepth = 0;
+        propagations = 0;
+
+        int nbGiven = 0;
+        boolean consistent = true;
+
+        for (int position = 0; position < 81 && consistent; position++) {
+            final int number = grid[position];
+            if (number == 0) {
+                continue;
+            }
+            if (number < 0 || number > 9 || !selectRow(rowStart[position * 9 + number - 1])) {
+                consistent = false;
+                break;
+            }
+            given[nbGiven++] = rowStart[position * 9 + number - 1];
+        }
+
+        this.nbSolutions = 0;
+        this.limit = limit;
+        if (consistent) {
+            search(0);
+        }
+
+        while (nbGiven > 0) {
+            unselectRow(given[--nbGiven]);
+        }
+
+        final long cpuEnd = SolverStatistics.currentCpuTime();
+        statistics = new SolverStatistics(nodes, backtracks, maxDepth, propagations, System.nanoTime() - start,
+                cpuStart < 0 ? -1 : cpuEnd - cpuStart);
+        metrics.record(statistics);
+        return nbSolutions;
+    }
+
+    @Override
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Algorithme X : choisit la colonne la moins remplie, et essaie chacune de ses lignes.
+     *
+     * @param depth la profondeur de recherche (nombre de lignes choisies)
+     * @return <code>vrai</code> lorsque la limite du nombre de solutions est atteinte, ou le budget épuisé; <br>
+     * <code>faux</code> sinon
+     */
+    private boolean search(int depth) {
+        if ((nodes & SolveBudget.CHECK_INTERVAL) == 0 && budget.isExhausted(nodes)) {
+            interrupted = true;
+            return true;
+        }
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+        if (right[ROOT] == ROOT) {
+            if (nbSolutions == 0) {
+                for (int i = 0; i < depth; i++) {
+                    solution[i] = row[stack[i]];
+                }
+                solutionLength = depth;
+            }
+            return ++nbSolutions >= limit;
+        }
+
+        int chosen = right[ROOT];
+        for (int column = right[chosen]; column != ROOT && size[chosen] > 1; column = right[column]) {
+            if (size[column] < size[chosen]) {
+                chosen = column;
+            }
+        }
+        if (size[chosen] == 0) {
+            backtracks++;
+            return false;
+        }
+
+        boolean stop = false;
+        cover(chosen);
+        for (int node = down[chosen]; node != chosen && !stop; node = down[node]) {
+            stack[depth] = node;
+            nodes++;
+            for (int j = right[node]; j != node; j = right[j]) {
+                cover(header[j]);
+            }
+
+            stop = search(depth + 1);
+
+            for (int j = left[node]; j != node; j = left[j]) {
+                uncover(header[j]);
+            }
+        }
+        uncover(chosen);
+
+        if (!stop) {
+            backtracks++;
+        }
+        return stop;
+    }
+
+    /**
+     * Sélectionne une ligne donnée par l'énoncé : couvre ses 4 colonnes.
+     *
+     * @param node le premier noeud de la ligne
+     * @return <code>vrai</code> si la ligne a été sélectionnée; <br>
+     * <code>faux</code> si l'une de ses colonnes est déjà couverte (chiffre en conflit)
+     */
+    private boolean selectRow(int node) {
+        int j = node;
+        do {
+            final int column = header[j];
+            if (right[left[column]] != column) {
+                return false;
+            }
+            j = right[j];
+        } while (j != node);
+
+        j = node;
+        do {
+            cover(header[j]);
+            j = right[j];
+        } while (j != node);
+        return true;
+    }
+
+    /**
+     * Annule la sélection d'une ligne donnée par l'énoncé.
+     *
+     * @param node le premier noeud de la ligne
+     * @see DancingLinksSolver#selectRow(int)
+     */
+    private void unselectRow(int node) {
+        int j = node;
+        do {
+            j = left[j];
+            uncover(header[j]);
+        } while (j != node);
+    }
+
+    private void cover(int column) {
+        propagations++;
+        right[left[column]] = right[column];
+        left[right[column]] = left[column];
+
+        for (int i = down[column]; i != column; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                size[header[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int column) {
+        for (int i = up[column]; i != column; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[header[j]]++;
+                up[down[j]] = j;
+                down[up[j]] = j;
+            }
+        }
+
+        right[left[column]] = column;
+        left[right[column]] = column;
+    }
+}
@@ -0,0 +1,577 @@
+package guillaume.sudotris.resources;
+
+import guillaume.sudotris.metier.Difficulte;
+import guillaume.sudotris.metier.Hint;
+import guillaume.sudotris.metier.Technique;
+import guillaume.sudotris.metier.element.Element;
+import guillaume.sudotris.metier.grid.Grid;
+
+/**
+ * Évaluation de la difficulté d'une grille, en la résolvant comme un joueur : à chaque étape, les techniques sont
+ * essayées de la plus simple à la plus difficile (c.f. Technique), et l'on revient aux plus simples dès que l'une
+ * d'elles a progressé. <br>
+ * Les candidats de chaque case sont des masques de bits, mis à jour incrémentalement à chaque placement ou élimination :
+ * aucune étape ne reparcourt la grille pour les recalculer. <br>
+ * L'instance est réutilisable d'une grille à l'autre, mais n'est pas thread-safe.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see Technique
+ * @since 1.8
+ */
+public class DifficultyGrader {
+    private static final int ALL_NUMBERS = 0x1FF;
+
+    /**
+     * Tables de la géométrie 9x9 : unités 0 à 8 pour les lignes, 9 à 17 pour les colonnes, 18 à 26 pour les blocs.
+     */
+    private static final GridGeometry GEOMETRY = GridGeometry.of(3);
+    private static final int[] LINE = GEOMETRY.line;
+    private static final int[] COLUMN = GEOMETRY.column;
+    private static final int[] BOX = GEOMETRY.box;
+    private static final int[][] UNITS = GEOMETRY.units;
+    private static final int[][] PEERS = GEOMETRY.peers;
+    private static final int NB_UNITS = UNITS.length;
+    private static final Technique[] TECHNIQUES = Technique.values();
+
+    private final byte[] cells = new byte[Grid.SIZE];
+    private final int[] candidates = new int[Grid.SIZE];
+    private int remaining;
+    private int lastPlaced;
+    private boolean contradiction;
+
+    /**
+     * Évalue la difficulté de la grille donnée.
+     *
+     * @param grid les 81 cases de la grille (non modifiée)
+     * @return l'évaluation de la grille
+     */
+    public Grade grade(byte[] grid) {
+        if (!load(grid)) {
+            return new Grade(null, 0, 0, false);
+        }
+
+        Technique hardest = null;
+        int score = 0;
+        int steps = 0;
+
+        while (remaining > 0) {
+            final Technique technique = step();
+            if (technique == null) {
+                break;
+            }
+            if (hardest == null || technique.compareTo(hardest) > 0) {
+                hardest = technique;
+            }
+            score += technique.getWeight();
+            steps++;
+        }
+
+        return new Grade(hardest, score, steps, remaining == 0 && !contradiction);
+    }
+
+    /**
+     * Cherche le prochain élément déductible de la grille donnée : les techniques sont appliquées, de la plus simple
+     * à la plus difficile, jusqu'au premier placement.
+     *
+     * @param grid les 81 cases de la grille (non modifiée)
+     * @return l'indice, portant la technique la plus difficile utilisée pour l'obtenir; <br>
+     * <code>null</code> si la grille est remplie, incohérente, ou si les techniques connues ne permettent aucun placement
+     */
+    public Hint hint(byte[] grid) {
+        if (!load(grid)) {
+            return null;
+        }
+
+        Technique hardest = null;
+        while (remaining > 0) {
+            final int before = remaining;
+            final Technique technique = step();
+            if (technique == null) {
+                return null;
+            }
+            if (hardest == null || technique.compareTo(hardest) > 0) {
+                hardest = technique;
+            }
+            if (remaining < before) {
+                final Element element = Element.of((byte) LINE[lastPlaced], (byte) COLUMN[lastPlaced],
+                        cells[lastPlaced]);
+                return new Hint(element, hardest);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Charge la grille donnée et initialise les candidats.
+     *
+     * @param grid les 81 cases de la grille
+     * @return <code>vrai</code> si la grille est cohérente; <br>
+     * <code>faux</code> sinon
+     */
+    boolean load(byte[] grid) {
+        contradiction = false;
+        remaining = Grid.SIZE;
+        for (int position = 0; position < Grid.SIZE; position++) {
+            cells[position] = 0;
+            candidates[position] = ALL_NUMBERS;
+        }
+
+        for (int position = 0; position < Grid.SIZE; position++) {
+            final int number = grid[position];
+            if (number == 0) {
+                continue;
+            }
+            if ((candidates[position] & (1 << (number - 1))) == 0) {
+                return false;
+            }
+            place(position, number);
+        }
+        return true;
+    }
+
+    /**
+     * Applique la plus simple des techniques permettant de progresser (placement ou élimination de candidats).
+     *
+     * @return la technique appliquée, ou <code>null</code> si aucune ne permet de progresser
+     */
+    Technique step() {
+        for (Technique technique : TECHNIQUES) {
+            if (contradiction) {
+                return null;
+            }
+            if (apply(technique)) {
+                return technique;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Renvoie le nombre de cases restant à remplir.
+     *
+     * @return le nombre de cases vides
+     */
+    int getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Renvoie le chiffre placé à la position donnée.
+     *
+     * @param position la position de la case
+     * @return le chiffre placé, ou 0 si la case est vide
+     */
+    int getNumber(int position) {
+        return cells[position];
+    }
+
+    private boolean apply(Technique technique) {
+        switch (technique) {
+            case NAKED_SINGLE:
+                return nakedSingle();
+            case HIDDEN_SINGLE:
+                return hiddenSingle();
+            case POINTING:
+                return pointing();
+            case BOX_LINE_REDUCTION:
+                return boxLineReduction();
+            case NAKED_PAIR:
+                return nakedSubset(2);
+            case HIDDEN_PAIR:
+                return hiddenPair();
+            case NAKED_TRIPLE:
+                return nakedSubset(3);
+            case X_WING:
+                return fish(2);
+            case SWORDFISH:
+                return fish(3);
+            default:
+                return false;
+        }
+    }
+
+    private void place(int position, int number) {
+        final int bit = 1 << (number - 1);
+        cells[position] = (byte) number;
+        candidates[position] = 0;
+        remaining--;
+        lastPlaced = position;
+        for (int peer : PEERS[position]) {
+            candidates[peer] &= ~bit;
+        }
+    }
+
+    /**
+     * Élimine des candidats d'une case vide.
+     *
+     * @param position la position de la case
+     * @param mask     les candidats à éliminer
+     * @return <code>vrai</code> si au moins un candidat a été éliminé; <br>
+     * <code>faux</code> sinon
+     */
+    private boolean eliminate(int position, int mask) {
+        if (cells[position] != 0 || (candidates[position] & mask) == 0) {
+            return false;
+        }
+        candidates[position] &= ~mask;
+        if (candidates[position] == 0) {
+            contradiction = true;
+        }
+        return true;
+    }
+
+    private boolean nakedSingle() {
+        for (int position = 0; position < Grid.SIZE; position++) {
+            if (cells[position] != 0) {
+                continue;
+            }
+            final int mask = candidates[position];
+            if (mask == 0) {
+                contradiction = true;
+                return false;
+            }
+            if ((mask & (mask - 1)) == 0) {
+                place(position, Integer.numberOfTrailingZeros(mask) + 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hiddenSingle() {
+        for (int unit = 0; unit < NB_UNITS; unit++) {
+            int once = 0;
+            int twice = 0;
+            for (int position : UNITS[unit]) {
+                twice |= once & candidates[position];
+                once |= candidates[position];
+            }
+
+            final int single = once & ~twice;
+            if (single == 0) {
+                continue;
+            }
+            final int bit = single & -single;
+            for (int position : UNITS[unit]) {
+                if ((candidates[position] & bit) != 0) {
+                    place(position, Integer.numberOfTrailingZeros(bit) + 1);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Dans chaque bloc, cherche un chiffre confiné à une ligne ou une colonne.
+     */
+    private boolean pointing() {
+        for (int box = 0; box < 9; box++) {
+            for (int bit = 1; bit <= ALL_NUMBERS; bit <<= 1) {
+                int lines = 0;
+                int columns = 0;
+                for (int position : UNITS[18 + box]) {
+                    if ((candidates[position] & bit) != 0) {
+                        lines |= 1 << LINE[position];
+                        columns |= 1 << COLUMN[position];
+                    }
+                }
+
+                boolean progress = false;
+                if (Integer.bitCount(lines) == 1) {
+                    for (int position : UNITS[Integer.numberOfTrailingZeros(lines)]) {
+                        if (BOX[position] != box) {
+                            progress |= eliminate(position, bit);
+                        }
+                    }
+                }
+                if (Integer.bitCount(columns) == 1) {
+                    for (int position : UNITS[9 + Integer.numberOfTrailingZeros(columns)]) {
+                        if (BOX[position] != box) {
+                            progress |= eliminate(position, bit);
+                        }
+                    }
+                }
+                if (progress) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Dans chaque ligne et chaque colonne, cherche un chiffre confiné à un bloc.
+     */
+    private boolean boxLineReduction() {
+        for (int unit = 0; unit < 18; unit++) {
+            for (int bit = 1; bit <= ALL_NUMBERS; bit <<= 1) {
+                int boxes = 0;
+                for (int position : UNITS[unit]) {
+                    if ((candidates[position] & bit) != 0) {
+                        boxes |= 1 << BOX[position];
+                    }
+                }
+                if (Integer.bitCount(boxes) != 1) {
+                    continue;
+                }
+
+                boolean progress = false;
+                for (int position : UNITS[18 + Integer.numberOfTrailingZeros(boxes)]) {
+                    final boolean inUnit = unit < 9 ? LINE[position] == unit : COLUMN[position] == unit - 9;
+                    if (!inUnit) {
+                        progress |= eliminate(position, bit);
+                    }
+                }
+                if (progress) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cherche, dans chaque unité, <code>size</code> cases dont l'union des candidats compte <code>size</code> chiffres :
+     * ces chiffres sont exclus des autres cases de l'unité.
+     *
+     * @param size la taille du sous-ensemble (2 pour une paire, 3 pour un triplet)
+     */
+    private boolean nakedSubset(int size) {
+        final int[] members = new int[9];
+        for (int unit = 0; unit < NB_UNITS; unit++) {
+            int count = 0;
+            for (int i = 0; i < 9; i++) {
+                final int bits = Integer.bitCount(candidates[UNITS[unit][i]]);
+                if (bits >= 2 && bits <= size) {
+                    members[count++] = i;
+                }
+            }
+
+            for (int a = 0; a < count; a++) {
+                for (int b = a + 1; b < count; b++) {
+                    final int pair = candidates[UNITS[unit][members[a]]] | candidates[UNITS[unit][members[b]]];
+                    if (size == 2) {
+                        if (Integer.bitCount(pair) == 2 && eliminateFromUnit(unit, pair, 1 << members[a] | 1 << members[b])) {
+                            return true;
+                        }
+                        continue;
+                    }
+                    for (int c = b + 1; c < count; c++) {
+                        final int triple = pair | candidates[UNITS[unit][members[c]]];
+                        if (Integer.bitCount(triple) == 3
+                                && eliminateFromUnit(unit, triple, 1 << members[a] | 1 << members[b] | 1 << members[c])) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Élimine des candidats de toutes les cases d'une unité, sauf celles données.
+     *
+     * @param unit     l'unité
+     * @param mask     les candidats à éliminer
+     * @param excluded les index (dans l'unité) des cases à ne pas modifier
+     */
+    private boolean eliminateFromUnit(int unit, int mask, int excluded) {
+        boolean progress = false;
+        for (int i = 0; i < 9; i++) {
+            if ((excluded & (1 << i)) == 0) {
+                progress |= eliminate(UNITS[unit][i], mask);
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Cherche, dans chaque unité, deux chiffres n'ayant que les deux mêmes cases possibles :
+     * les autres candidats de ces deux cases sont éliminés.
+     */
+    private boolean hiddenPair() {
+        final int[] places = new int[9];
+        for (int unit = 0; unit < NB_UNITS; unit++) {
+            for (int number = 0; number < 9; number++) {
+                places[number] = 0;
+                for (int i = 0; i < 9; i++) {
+                    if ((candidates[UNITS[unit][i]] & (1 << number)) != 0) {
+                        places[number] |= 1 << i;
+                    }
+                }
+            }
+
+            for (int a = 0; a < 9; a++) {
+                if (Integer.bitCount(places[a]) != 2) {
+                    continue;
+                }
+                for (int b = a + 1; b < 9; b++) {
+                    if (places[b] != places[a]) {
+                        continue;
+                    }
+                    final int others = ALL_NUMBERS & ~(1 << a | 1 << b);
+                    boolean progress = false;
+                    for (int i = 0; i < 9; i++) {
+                        if ((places[a] & (1 << i)) != 0) {
+                            progress |= eliminate(UNITS[unit][i], others);
+                        }
+                    }
+                    if (progress) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * "Poissons" : pour un chiffre, cherche <code>size</code> lignes dont les cases possibles tiennent dans
+     * <code>size</code> colonnes (le chiffre est alors exclu du reste de ces colonnes), et inversement.
+     *
+     * @param size 2 pour un X-Wing, 3 pour un Swordfish
+     */
+    private boolean fish(int size) {
+        final int[] bases = new int[9];
+        final int[] members = new int[9];
+        for (int bit = 1; bit <= ALL_NUMBERS; bit <<= 1) {
+            for (int orientation = 0; orientation < 2; orientation++) {
+                int count = 0;
+                for (int base = 0; base < 9; base++) {
+                    int cover = 0;
+                    for (int i = 0; i < 9; i++) {
+                        if ((candidates[UNITS[orientation * 9 + base][i]] & bit) != 0) {
+                            cover |= 1 << i;
+                        }
+                    }
+                    final int bits = Integer.bitCount(cover);
+                    if (bits >= 2 && bits <= size) {
+                        bases[count] = cover;
+                        members[count++] = base;
+                    }
+                }
+
+                for (int a = 0; a < count; a++) {
+                    for (int b = a + 1; b < count; b++) {
+                        if (size == 2) {
+                            final int cover = bases[a] | bases[b];
+                            if (Integer.bitCount(cover) == 2
+                                    && eliminateFish(orientation, cover, 1 << members[a] | 1 << members[b], bit)) {
+                                return true;
+                            }
+                            continue;
+                        }
+                        for (int c = b + 1; c < count; c++) {
+                            final int cover = bases[a] | bases[b] | bases[c];
+                            if (Integer.bitCount(cover) == 3 && eliminateFish(orientation, cover,
+                                    1 << members[a] | 1 << members[b] | 1 << members[c], bit)) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Élimine le chiffre des unités couvrantes d'un poisson, hors des unités de base.
+     *
+     * @param orientation 0 si les unités de base sont des lignes, 1 si ce sont des colonnes
+     * @param cover       les unités couvrantes (colonnes, ou lignes)
+     * @param bases       les unités de base
+     * @param bit         le chiffre
+     */
+    private boolean eliminateFish(int orientation, int cover, int bases, int bit) {
+        boolean progress = false;
+        for (int i = 0; i < 9; i++) {
+            if ((cover & (1 << i)) == 0) {
+                continue;
+            }
+            final int coverUnit = (1 - orientation) * 9 + i;
+            for (int j = 0; j < 9; j++) {
+                if ((bases & (1 << j)) == 0) {
+                    progress |= eliminate(UNITS[coverUnit][j], bit);
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Évaluation d'une grille.
+     */
+    public static final class Grade {
+        private final Technique hardest;
+        private final int score;
+        private final int steps;
+        private final boolean solved;
+
+        Grade(Technique hardest, int score, int steps, boolean solved) {
+            this.hardest = hardest;
+            this.score = score;
+            this.steps = steps;
+            this.solved = solved;
+        }
+
+        /**
+         * Renvoie la technique la plus difficile utilisée.
+         *
+         * @return la technique la plus difficile, ou <code>null</code> si aucune n'a été utilisée
+         */
+        public Technique getHardest() {
+            return hardest;
+        }
+
+        /**
+         * Renvoie le score de difficulté : somme des poids des techniques utilisées, étape par étape.
+         *
+         * @return le score de difficulté
+         */
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Renvoie le nombre d'étapes de la résolution.
+         *
+         * @return le nombre d'étapes
+         */
+        public int getSteps() {
+            return steps;
+        }
+
+        /**
+         * Indique si les techniques connues ont suffi à résoudre la grille.
+         *
+         * @return <code>vrai</code> si la grille a été résolue; <br>
+         * <code>faux</code> sinon (grille incohérente, ou nécessitant des techniques plus avancées)
+         */
+        public boolean isSolved() {
+            return solved;
+        }
+
+        /**
+         * Renvoie la difficulté de jeu de la grille : celle de la technique la plus difficile utilisée,
+         * ou HARD si les techniques connues n'ont pas suffi.
+         *
+         * @return la difficulté de la grille
+         */
+        public Difficulte getDifficulte() {
+            if (!solved) {
+                return Difficulte.HARD;
+            }
+            return hardest == null ? Difficulte.EASY : hardest.getDifficulte();
+        }
+
+        @Override
+        public String toString() {
+            return getDifficulte() + " (score " + score + ", " + (solved ? "" : "non résolue, ")
+                    + "technique la plus difficile : " + hardest + ")";
+        }
+    }
+}
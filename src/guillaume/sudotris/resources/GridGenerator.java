@@ -0,0 +1,292 @@
+package guillaume.sudotris.resources;
+
+import guillaume.sudotris.metier.Difficulte;
+import guillaume.sudotris.metier.grid.Grid;
+
+import java.util.Random;
+
+/**
+ * Générateur de grilles de jeu à solution unique. <br>
+ * Une grille complète est d'abord tirée au hasard, puis des indices en sont retirés, dans un ordre aléatoire, tant que
+ * la solution reste unique. Une fois le nombre d'indices visé pour la difficulté atteint, chaque grille est évaluée
+ * par <code>DifficultyGrader</code> : un retrait qui dépasse la difficulté demandée est annulé, et la grille est
+ * rendue dès que sa difficulté est celle demandée. Pour HARD, les indices sont retirés tant que possible, et la grille
+ * n'est évaluée qu'à la fin; une grille complète est tirée à nouveau si la difficulté n'est pas atteinte. <br>
+ * L'instance n'est pas thread-safe.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see BitsetSolver#countSolutions(byte[], int)
+ * @see DifficultyGrader
+ * @since 1.8
+ */
+public class GridGenerator {
+    private static final int ALL_NUMBERS = 0x1FF;
+
+    private static final GridGeometry GEOMETRY = GridGeometry.of(3);
+    private static final int[] LINE = GEOMETRY.line;
+    private static final int[] COLUMN = GEOMETRY.column;
+    private static final int[] BOX = GEOMETRY.box;
+    private static final int[][] UNITS = GEOMETRY.units;
+
+    private final Random random;
+    private final BitsetSolver solver = new BitsetSolver(3);
+    private final DifficultyGrader grader = new DifficultyGrader();
+
+    /**
+     * Chiffres placés dans chaque ligne, colonne et bloc : ceux de la grille complète pendant son tirage, puis ceux
+     * des indices restants pendant le retrait.
+     */
+    private final int[] lines = new int[9];
+    private final int[] columns = new int[9];
+    private final int[] boxes = new int[9];
+    private final byte[] order = new byte[Grid.SIZE];
+
+    /**
+     * Construit un générateur de grilles aléatoires.
+     */
+    public GridGenerator() {
+        this(new Random());
+    }
+
+    /**
+     * Construit un générateur de grilles utilisant la source d'aléa donnée (par exemple pour des grilles reproductibles).
+     *
+     * @param random la source d'aléa
+     */
+    public GridGenerator(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Génère une grille de la difficulté donnée, ainsi que sa solution.
+     *
+     * @param difficulte la difficulté de la grille
+     * @param puzzle     les 81 cases de la grille, à remplir
+     * @param solution   les 81 cases de la solution, à remplir
+     */
+    public void generate(Difficulte difficulte, byte[] puzzle, byte[] solution) {
+        do {
+            fill(solution);
+            System.arraycopy(solution, 0, puzzle, 0, Grid.SIZE);
+        } while (!removeClues(difficulte, puzzle));
+    }
+
+    /**
+     * Retire des indices de la grille complète donnée, jusqu'à obtenir une grille de la difficulté demandée.
+     *
+     * @param difficulte la difficulté de la grille
+     * @param puzzle     les cases de la grille complète, dont les indices sont retirés
+     * @return <code>vrai</code> si la grille obtenue est de la difficulté demandée; <br>
+     * <code>faux</code> sinon (une autre grille complète doit être tirée)
+     */
+    private boolean removeClues(Difficulte difficulte, byte[] puzzle) {
+        final int target = getTargetClues(difficulte);
+        for (int i = 0; i < Grid.SIZE; i++) {
+            order[i] = (byte) i;
+        }
+        shuffle(order, Grid.SIZE);
+
+        int clues = Grid.SIZE;
+        for (int i = 0; i < Grid.SIZE; i++) {
+            final int position = order[i];
+            final byte number = puzzle[position];
+            if (!isForced(puzzle, position, number)) {
+                continue;
+            }
+            puzzle[position] = 0;
+            if (--clues > target) {
+                continue;
+            }
+
+            final Difficulte graded = grader.grade(puzzle).getDifficulte();
+            if (graded.compareTo(difficulte) > 0) {
+                // Retrait trop difficile : l'indice est remis, et les suivants sont essayés
+                puzzle[position] = number;
+                set(position, number);
+                clues++;
+            } else if (graded == difficulte) {
+                return true;
+            }
+        }
+        return target == 0 && grader.grade(puzzle).getDifficulte() == difficulte;
+    }
+
+    /**
+     * Indique si l'indice à la position donnée peut être retiré sans perdre l'unicité de la solution, et le retire
+     * alors des chiffres placés (mais pas de la grille). <br>
+     * Sans recherche, lorsque le chiffre retiré se déduit immédiatement des indices restants : seul candidat de sa
+     * case, ou seule case possible de sa ligne, de sa colonne ou de son bloc. <br>
+     * Sinon, la grille ayant une solution unique, c'est le cas si et seulement si aucun autre chiffre placé à cette
+     * position ne mène à une solution : chaque essai s'arrête dès la première solution, et échoue généralement très
+     * vite.
+     *
+     * @param puzzle   les cases de la grille
+     * @param position la position de l'indice
+     * @param number   le chiffre de l'indice (celui de la solution)
+     * @return <code>vrai</code> si l'indice peut être retiré; <br>
+     * <code>faux</code> sinon
+     */
+    private boolean isForced(byte[] puzzle, int position, byte number) {
+        final int numberBit = 1 << (number - 1);
+        clear(position, number);
+        int candidates = candidates(position) & ~numberBit;
+        if (candidates == 0 || isHiddenSingle(puzzle, position, numberBit)) {
+            return true;
+        }
+
+        boolean forced = true;
+        while (candidates != 0 && forced) {
+            final int bit = candidates & -candidates;
+            candidates ^= bit;
+
+            puzzle[position] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+            forced = solver.countSolutions(puzzle, 1) == 0;
+        }
+
+        puzzle[position] = number;
+        if (!forced) {
+            set(position, number);
+        }
+        return forced;
+    }
+
+    /**
+     * Indique si le chiffre donné n'a, hors de la position donnée, aucune case vide possible dans la ligne, la colonne
+     * ou le bloc de cette position.
+     *
+     * @param puzzle   les cases de la grille
+     * @param position la position de la case
+     * @param bit      le chiffre, sous forme de masque
+     * @return <code>vrai</code> si le chiffre ne peut aller qu'à cette position dans l'une de ses unités; <br>
+     * <code>faux</code> sinon
+     */
+    private boolean isHiddenSingle(byte[] puzzle, int position, int bit) {
+        return isOnlyPlace(puzzle, UNITS[LINE[position]], position, bit)
+                || isOnlyPlace(puzzle, UNITS[9 + COLUMN[position]], position, bit)
+                || isOnlyPlace(puzzle, UNITS[18 + BOX[position]], position, bit);
+    }
+
+    private boolean isOnlyPlace(byte[] puzzle, int[] unit, int position, int bit) {
+        for (int other : unit) {
+            if (other != position && puzzle[other] == 0 && (candidates(other) & bit) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Renvoie le nombre d'indices à partir duquel la difficulté de la grille est évaluée. Pour HARD, les indices sont
+     * retirés tant que possible.
+     *
+     * @param difficulte la difficulté
+     * @return le nombre d'indices visé
+     */
+    private int getTargetClues(Difficulte difficulte) {
+        switch (difficulte) {
+            case EASY:
+                return 36 + random.nextInt(5);
+            case MEDIUM:
+                return 30 + random.nextInt(4);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Remplit une grille complète au hasard : backtracking sur la case ayant le moins de candidats,
+     * en essayant les candidats dans un ordre aléatoire.
+     *
+     * @param cells les 81 cases à remplir
+     */
+    private void fill(byte[] cells) {
+        for (int i = 0; i < 9; i++) {
+            lines[i] = 0;
+            columns[i] = 0;
+            boxes[i] = 0;
+        }
+        for (int position = 0; position < Grid.SIZE; position++) {
+            cells[position] = 0;
+        }
+        fill(cells, Grid.SIZE);
+    }
+
+    private boolean fill(byte[] cells, int remaining) {
+        if (remaining == 0) {
+            return true;
+        }
+
+        int chosen = -1;
+        int best = 10;
+        for (int position = 0; position < Grid.SIZE && best > 1; position++) {
+            if (cells[position] == 0) {
+                final int count = Integer.bitCount(candidates(position));
+                if (count < best) {
+                    chosen = position;
+                    best = count;
+                }
+            }
+        }
+        if (best == 0) {
+            return false;
+        }
+
+        final byte[] numbers = new byte[best];
+        int candidates = candidates(chosen);
+        for (int i = 0; candidates != 0; i++) {
+            final int bit = candidates & -candidates;
+            candidates ^= bit;
+            numbers[i] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+        }
+        shuffle(numbers, best);
+
+        final int line = LINE[chosen];
+        final int column = COLUMN[chosen];
+        final int box = BOX[chosen];
+        for (byte number : numbers) {
+            final int bit = 1 << (number - 1);
+            lines[line] |= bit;
+            columns[column] |= bit;
+            boxes[box] |= bit;
+            cells[chosen] = number;
+
+            if (fill(cells, remaining - 1)) {
+                return true;
+            }
+
+            lines[line] ^= bit;
+            columns[column] ^= bit;
+            boxes[box] ^= bit;
+        }
+        cells[chosen] = 0;
+        return false;
+    }
+
+    private int candidates(int position) {
+        return ~(lines[LINE[position]] | columns[COLUMN[position]] | boxes[BOX[position]]) & ALL_NUMBERS;
+    }
+
+    private void set(int position, byte number) {
+        final int bit = 1 << (number - 1);
+        lines[LINE[position]] |= bit;
+        columns[COLUMN[position]] |= bit;
+        boxes[BOX[position]] |= bit;
+    }
+
+    private void clear(int position, byte number) {
+        final int bit = ~(1 << (number - 1));
+        lines[LINE[position]] &= bit;
+        columns[COLUMN[position]] &= bit;
+        boxes[BOX[position]] &= bit;
+    }
+
+    private void shuffle(byte[] values, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final byte value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+}
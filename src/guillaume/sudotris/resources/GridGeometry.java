@@ -0,0 +1,128 @@
+package guillaume.sudotris.resources;
+
+/**
+ * Géométrie d'une grille d'ordre <code>n</code> : <code>n² x n²</code> cases, découpées en <code>n²</code> blocs de
+ * <code>n x n</code> cases, et remplies des nombres 1 à <code>n²</code> (9x9 pour l'ordre 3, 16x16 pour l'ordre 4,
+ * 25x25 pour l'ordre 5). <br>
+ * Tables précalculées : ligne, colonne et bloc de chaque case, cases de chaque unité, voisines de chaque case.
+ * Les candidats d'une case tiennent dans un entier (un bit par nombre) : l'ordre est donc limité à
+ * <code>MAX_ORDER</code>. <br>
+ * Les instances sont partagées et immuables : leurs tableaux ne doivent pas être modifiés.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @since 1.8
+ */
+public final class GridGeometry {
+    /**
+     * Ordre minimal d'une grille.
+     */
+    public static final int MIN_ORDER = 2;
+    /**
+     * Ordre maximal d'une grille : 25x25.
+     */
+    public static final int MAX_ORDER = 5;
+
+    private static final GridGeometry[] GEOMETRIES = new GridGeometry[MAX_ORDER + 1];
+
+    /**
+     * Ordre de la grille.
+     */
+    public final int order;
+    /**
+     * Nombre de cases d'une ligne (et nombre de nombres) : <code>order²</code>.
+     */
+    public final int side;
+    /**
+     * Nombre de cases de la grille : <code>side²</code>.
+     */
+    public final int size;
+    /**
+     * Masque de tous les nombres : bit <code>n - 1</code> pour le nombre <code>n</code>.
+     */
+    public final int allNumbers;
+
+    /**
+     * Ligne, colonne et bloc de chaque case.
+     */
+    public final int[] line;
+    public final int[] column;
+    public final int[] box;
+    /**
+     * Cases de chaque unité : <code>side</code> lignes, puis <code>side</code> colonnes, puis <code>side</code> blocs.
+     */
+    public final int[][] units;
+    /**
+     * Voisines (même ligne, colonne ou bloc) de chaque case.
+     */
+    public final int[][] peers;
+
+    private GridGeometry(int order) {
+        this.order = order;
+        this.side = order * order;
+        this.size = side * side;
+        this.allNumbers = (1 << side) - 1;
+
+        line = new int[size];
+        column = new int[size];
+        box = new int[size];
+        units = new int[3 * side][side];
+        for (int position = 0; position < size; position++) {
+            line[position] = position / side;
+            column[position] = position % side;
+            box[position] = (line[position] / order) * order + column[position] / order;
+
+            units[line[position]][column[position]] = position;
+            units[side + column[position]][line[position]] = position;
+            units[2 * side + box[position]][(line[position] % order) * order + column[position] % order] = position;
+        }
+
+        final int nbPeers = 3 * side - 2 * order - 1;
+        peers = new int[size][nbPeers];
+        for (int position = 0; position < size; position++) {
+            int count = 0;
+            for (int other = 0; other < size; other++) {
+                if (other != position && (line[other] == line[position] || column[other] == column[position]
+                        || box[other] == box[position])) {
+                    peers[position][count++] = other;
+                }
+            }
+        }
+    }
+
+    /**
+     * Renvoie la géométrie des grilles de l'ordre donné.
+     *
+     * @param order l'ordre de la grille (3 pour une grille 9x9)
+     * @return la géométrie partagée des grilles de cet ordre
+     * @throws IllegalArgumentException si l'ordre n'est pas compris entre <code>MIN_ORDER</code> et
+     *                                  <code>MAX_ORDER</code>
+     */
+    public static GridGeometry of(int order) {
+        if (order < MIN_ORDER || order > MAX_ORDER) {
+            throw new IllegalArgumentException("Ordre de grille non supporté : " + order);
+        }
+        synchronized (GEOMETRIES) {
+            if (GEOMETRIES[order] == null) {
+                GEOMETRIES[order] = new GridGeometry(order);
+            }
+            return GEOMETRIES[order];
+        }
+    }
+
+    /**
+     * Renvoie la géométrie des grilles du nombre de cases donné.
+     *
+     * @param size le nombre de cases de la grille (81, 256, 625...)
+     * @return la géométrie partagée des grilles de cette taille
+     * @throws IllegalArgumentException si aucun ordre supporté ne correspond à ce nombre de cases
+     */
+    public static GridGeometry ofSize(int size) {
+        for (int order = MIN_ORDER; order <= MAX_ORDER; order++) {
+            if (order * order * order * order == size) {
+                return of(order);
+            }
+        }
+        throw new IllegalArgumentException("Nombre de cases non supporté : " + size);
+    }
+}
@@ -21,7 +21,18 @@ public class GrilleFileProvider {
     public static final String BASE_URL = "resources";
 
     /**
-     * Renvoie le chemin d'accés à la grille partiellement remplie de jeu, en fonction du niveau de difficulté donné.
+     * Renvoie le catalogue des grilles de jeu rangées sous <code>BASE_URL</code>, créé au premier appel.
+     *
+     * @return le catalogue des grilles de jeu
+     * @see PuzzleCatalog
+     */
+    public static PuzzleCatalog getCatalog() {
+        return CatalogHolder.CATALOG;
+    }
+
+    /**
+     * Renvoie le chemin d'accés à la grille partiellement remplie de jeu, en fonction du niveau de difficulté donné. <br>
+     * Le dossier de la difficulté est parcouru à chaque appel : préférer le catalogue, c.f. <code>getCatalog()</code>.
      *
      * @param difficulte le niveau de difficulté de la partie.
      * @return le chemin d'accés à la grille partiellement remplie de jeu
@@ -54,4 +65,11 @@ public class GrilleFileProvider {
 
         return Paths.get(filled);
     }
+
+    /**
+     * Initialisation paresseuse du catalogue.
+     */
+    private static final class CatalogHolder {
+        private static final PuzzleCatalog CATALOG = new PuzzleCatalog(BASE_URL);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,375 @@
+package guillaume.sudotris.resources;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Résolveur parallèle d'une grille : l'arbre de recherche est découpé, sur ses premiers niveaux de branchement,
+ * en tâches ForkJoin (une par candidat de la case choisie), ensuite réparties par vol de travail entre les threads. <br>
+ * Le découpage choisit à chaque étape la case ayant le moins de candidats : les cases à candidat unique sont remplies
+ * sans créer de niveau. Chaque feuille du découpage est ensuite résolue par couverture exacte (DancingLinksSolver, un
+ * moteur par thread du pool). La première solution trouvée (ou, en mode comptage, la dernière solution nécessaire
+ * pour atteindre la limite) annule le budget dérivé des autres feuilles, qui s'interrompent aussitôt. <br>
+ * La limite de nœuds du budget s'applique à chaque feuille, et au total des nœuds du découpage et des feuilles
+ * terminées. <br>
+ * Une instance peut être partagée entre plusieurs threads.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see DancingLinksSolver
+ * @since 1.8
+ */
+public class ParallelSolver implements Solver {
+    private static final int ALL_NUMBERS = 0x1FF;
+
+    /**
+     * Profondeur de découpage par défaut de l'arbre de recherche, en niveaux de branchement.
+     */
+    public static final int DEFAULT_SPLIT_DEPTH = 2;
+
+    private static final GridGeometry GEOMETRY = GridGeometry.of(3);
+    private static final int[] LINE = GEOMETRY.line;
+    private static final int[] COLUMN = GEOMETRY.column;
+    private static final int[] BOX = GEOMETRY.box;
+
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private final ThreadLocal<DancingLinksSolver> leaves = ThreadLocal.withInitial(DancingLinksSolver::new);
+    private final SolverMetrics metrics = SolverMetrics.forEngine("ParallelSolver");
+    private volatile SolverStatistics statistics = SolverStatistics.NONE;
+
+    /**
+     * Construit un résolveur parallèle sur le pool commun, avec la profondeur de découpage par défaut.
+     */
+    public ParallelSolver() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * Construit un résolveur parallèle.
+     *
+     * @param pool       le pool de threads sur lequel explorer l'arbre de recherche
+     * @param splitDepth le nombre de niveaux de branchement de l'arbre de recherche découpés en tâches
+     */
+    public ParallelSolver(ForkJoinPool pool, int splitDepth) {
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+    }
+
+    @Override
+    public boolean solve(byte[] grid) {
+        return solve(grid, SolveBudget.UNBOUNDED) == SolveStatus.SOLVED;
+    }
+
+    @Override
+    public SolveStatus solve(byte[] grid, SolveBudget budget) {
+        final Search search = run(grid, 1, budget);
+        final byte[] found = search.solution.get();
+        if (found == null) {
+            return search.interrupted || budget.isCancelled() ? budget.interruption() : SolveStatus.NO_SOLUTION;
+        }
+        System.arraycopy(found, 0, grid, 0, 81);
+        return SolveStatus.SOLVED;
+    }
+
+    @Override
+    public int countSolutions(byte[] grid, int limit) {
+        return Math.min(run(grid, limit, SolveBudget.UNBOUNDED).count.get(), limit);
+    }
+
+    @Override
+    public int solveAndCount(byte[] grid, int limit) {
+        final Search search = run(grid, limit, SolveBudget.UNBOUNDED);
+        final byte[] found = search.solution.get();
+        if (found != null) {
+            System.arraycopy(found, 0, grid, 0, 81);
+        }
+        return Math.min(search.count.get(), limit);
+    }
+
+    /**
+     * Renvoie les statistiques de la dernière recherche terminée. Le temps CPU est cumulé sur les feuilles.
+     *
+     * @return les statistiques de la dernière recherche terminée
+     */
+    @Override
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+
+    private Search run(byte[] grid, int limit, SolveBudget budget) {
+        final long start = System.nanoTime();
+        final State root = new State();
+        final boolean valid = root.load(grid);
+        final Search search = new Search(limit, budget, root.empties);
+        if (valid) {
+            search.propagations.add(81 - root.empties);
+            pool.invoke(new SearchTask(root, 0, search));
+        }
+
+        final SolverStatistics statistics = new SolverStatistics(search.nodes.sum(), search.backtracks.sum(),
+                (int) search.maxDepth.get(), search.propagations.sum(), System.nanoTime() - start,
+                SolverStatistics.isCpuTimeMeasured() ? search.cpuNanos.sum() : -1);
+        this.statistics = statistics;
+        metrics.record(statistics);
+        return search;
+    }
+
+    /**
+     * État partagé par les tâches d'une même recherche.
+     */
+    private static final class Search {
+        private final AtomicReference<byte[]> solution = new AtomicReference<>();
+        private final AtomicInteger count = new AtomicInteger();
+        private final int limit;
+
+        /**
+         * Nombre de cases vides de la grille initiale : la profondeur se compte à partir de la première case vide,
+         * comme dans les autres moteurs.
+         */
+        private final int empties;
+
+        /**
+         * Budget de la recherche, budget dérivé des feuilles (annulé dès que la recherche est terminée), nœuds
+         * visités par les feuilles terminées, et indicateur d'épuisement du budget.
+         */
+        private final SolveBudget budget;
+        private final SolveBudget leafBudget;
+        private final AtomicLong visited = new AtomicLong();
+        private volatile boolean interrupted;
+
+        private final LongAdder nodes = new LongAdder();
+        private final LongAdder backtracks = new LongAdder();
+        private final LongAdder propagations = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+        Search(int limit, SolveBudget budget, int empties) {
+            this.limit = limit;
+            this.empties = empties;
+            this.budget = budget;
+            this.leafBudget = budget.fork();
+        }
+
+        boolean isDone() {
+            return interrupted || budget.isCancelled() || count.get() >= limit;
+        }
+
+        /**
+         * Comptabilise les nœuds visités par une feuille ou par le découpage, et consulte le budget.
+         *
+         * @param nodes le nombre de nœuds visités
+         */
+        void consume(long nodes) {
+            if (budget.isExhausted(visited.addAndGet(nodes))) {
+                interrupted = true;
+                leafBudget.cancel();
+            }
+        }
+
+        /**
+         * Enregistre des solutions.
+         *
+         * @param cells les cases de la première solution
+         * @param found le nombre de solutions trouvées
+         */
+        void found(byte[] cells, int found) {
+            solution.compareAndSet(null, cells.clone());
+            if (count.addAndGet(found) >= limit) {
+                leafBudget.cancel();
+            }
+        }
+
+        /**
+         * Ajoute aux statistiques de la recherche celles d'une feuille.
+         *
+         * @param leaf     les statistiques de la feuille
+         * @param depth    la profondeur de la feuille dans l'arbre de recherche, depuis la première case vide
+         * @param cpuNanos le temps CPU de la feuille, ou une valeur négative s'il n'est pas mesuré
+         */
+        void add(SolverStatistics leaf, int depth, long cpuNanos) {
+            nodes.add(leaf.getNodes());
+            backtracks.add(leaf.getBacktracks());
+            propagations.add(leaf.getPropagations());
+            maxDepth.accumulate(depth + leaf.getMaxDepth());
+            if (cpuNanos >= 0) {
+                this.cpuNanos.add(cpuNanos);
+            }
+        }
+    }
+
+    /**
+     * Tâche d'exploration d'un sous-arbre de recherche.
+     */
+    private final class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final State state;
+        private final int depth;
+        private final Search search;
+
+        SearchTask(State state, int depth, Search search) {
+            this.state = state;
+            this.depth = depth;
+            this.search = search;
+        }
+
+        @Override
+        protected void compute() {
+            if (search.isDone()) {
+                return;
+            }
+            if (depth >= splitDepth) {
+                solveLeaf();
+                return;
+            }
+
+            // Cases à candidat unique remplies sur place : seuls les vrais branchements créent des tâches
+            int position = state.chooseCell();
+            int candidates = position < 0 ? 0 : state.candidates(position);
+            while (Integer.bitCount(candidates) == 1) {
+                state.place(position, candidates);
+                search.propagations.increment();
+                position = state.chooseCell();
+                candidates = position < 0 ? 0 : state.candidates(position);
+            }
+            search.maxDepth.accumulate(search.empties - state.empties);
+            if (position < 0) {
+                search.found(state.cells, 1);
+                return;
+            }
+            if (candidates == 0) {
+                search.backtracks.increment();
+                return;
+            }
+
+            search.nodes.add(Integer.bitCount(candidates));
+            search.consume(Integer.bitCount(candidates));
+            if (search.isDone()) {
+                return;
+            }
+            final SearchTask[] children = new SearchTask[Integer.bitCount(candidates)];
+            for (int i = 0; candidates != 0; i++) {
+                final int bit = candidates & -candidates;
+                candidates ^= bit;
+
+                final State child = new State(state);
+                child.place(position, bit);
+                search.propagations.increment();
+                children[i] = new SearchTask(child, depth + 1, search);
+            }
+            invokeAll(children);
+        }
+
+        /**
+         * Résoud (ou compte les solutions de) la feuille par couverture exacte, avec le moteur du thread courant.
+         */
+        private void solveLeaf() {
+            final DancingLinksSolver leaf = leaves.get();
+            final long cpuStart = SolverStatistics.currentCpuTime();
+            final byte[] cells = state.cells.clone();
+            if (search.limit == 1) {
+                if (leaf.solve(cells, search.leafBudget) == SolveStatus.SOLVED) {
+                    search.found(cells, 1);
+                }
+            } else {
+                final int remaining = search.limit - search.count.get();
+                if (remaining > 0) {
+                    final int found = leaf.count(cells, remaining, search.leafBudget);
+                    if (found > 0) {
+                        leaf.copySolution(cells);
+                        search.found(cells, found);
+                    }
+                }
+            }
+            final long cpuEnd = SolverStatistics.currentCpuTime();
+
+            final SolverStatistics statistics = leaf.getStatistics();
+            search.add(statistics, search.empties - state.empties, cpuStart < 0 ? -1 : cpuEnd - cpuStart);
+            search.consume(statistics.getNodes());
+        }
+    }
+
+    /**
+     * État d'une tâche de découpage : cases et masques des lignes, colonnes et blocs.
+     */
+    private static final class State {
+        private final byte[] cells;
+        private final int[] lines;
+        private final int[] columns;
+        private final int[] boxes;
+        private int empties;
+
+        State() {
+            cells = new byte[81];
+            lines = new int[9];
+            columns = new int[9];
+            boxes = new int[9];
+            empties = 81;
+        }
+
+        State(State other) {
+            cells = other.cells.clone();
+            lines = other.lines.clone();
+            columns = other.columns.clone();
+            boxes = other.boxes.clone();
+            empties = other.empties;
+        }
+
+        boolean load(byte[] grid) {
+            for (int position = 0; position < 81; position++) {
+                final int number = grid[position];
+                if (number == 0) {
+                    continue;
+                }
+                final int bit = 1 << (number - 1);
+                if ((candidates(position) & bit) == 0) {
+                    return false;
+                }
+                place(position, bit);
+            }
+            return true;
+        }
+
+        int candidates(int position) {
+            return ~(lines[LINE[position]] | columns[COLUMN[position]] | boxes[BOX[position]]) & ALL_NUMBERS;
+        }
+
+        void place(int position, int bit) {
+            lines[LINE[position]] |= bit;
+            columns[COLUMN[position]] |= bit;
+            boxes[BOX[position]] |= bit;
+            cells[position] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+            empties--;
+        }
+
+        /**
+         * Choisit la case vide ayant le moins de candidats.
+         *
+         * @return la position de la case, ou -1 si la grille est remplie
+         */
+        int chooseCell() {
+            int chosen = -1;
+            int best = 10;
+            for (int position = 0; position < 81; position++) {
+                if (cells[position] != 0) {
+                    continue;
+                }
+                final int count = Integer.bitCount(candidates(position));
+                if (count < best) {
+                    chosen = position;
+                    best = count;
+                    if (count <= 1) {
+                        break;
+                    }
+                }
+            }
+            return chosen;
+        }
+    }
+}
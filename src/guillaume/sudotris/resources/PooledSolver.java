@@ -0,0 +1,93 @@
+package guillaume.sudotris.resources;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Moteur de résolution partagé entre threads, qui emprunte pour chaque recherche un moteur à un réservoir. <br>
+ * Le nombre de moteurs instanciés est borné par le nombre de recherches simultanées, et non par le nombre de threads
+ * ou de parties : adapté à un grand nombre de parties servies par des threads éphémères (un par connexion).
+ * Les instances sont thread-safe.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see Solver
+ * @since 1.8
+ */
+public class PooledSolver implements Solver {
+    private final Supplier<Solver> factory;
+    private final Queue<Solver> idle = new ConcurrentLinkedQueue<>();
+    private volatile SolverStatistics statistics = SolverStatistics.NONE;
+
+    /**
+     * Construit un réservoir de DancingLinksSolver.
+     */
+    public PooledSolver() {
+        this(DancingLinksSolver::new);
+    }
+
+    /**
+     * Construit un réservoir de moteurs.
+     *
+     * @param factory la fabrique des moteurs, appelée lorsque tous les moteurs du réservoir sont occupés
+     */
+    public PooledSolver(Supplier<Solver> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public boolean solve(byte[] grid) {
+        return solve(grid, SolveBudget.UNBOUNDED) == SolveStatus.SOLVED;
+    }
+
+    @Override
+    public SolveStatus solve(byte[] grid, SolveBudget budget) {
+        final Solver solver = borrow();
+        try {
+            return solver.solve(grid, budget);
+        } finally {
+            release(solver);
+        }
+    }
+
+    @Override
+    public int countSolutions(byte[] grid, int limit) {
+        final Solver solver = borrow();
+        try {
+            return solver.countSolutions(grid, limit);
+        } finally {
+            release(solver);
+        }
+    }
+
+    @Override
+    public int solveAndCount(byte[] grid, int limit) {
+        final Solver solver = borrow();
+        try {
+            return solver.solveAndCount(grid, limit);
+        } finally {
+            release(solver);
+        }
+    }
+
+    /**
+     * Renvoie les statistiques de la dernière recherche terminée, tous threads confondus.
+     *
+     * @return les statistiques de la dernière recherche terminée
+     */
+    @Override
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+
+    private Solver borrow() {
+        final Solver solver = idle.poll();
+        return solver != null ? solver : factory.get();
+    }
+
+    private void release(Solver solver) {
+        statistics = solver.getStatistics();
+        idle.offer(solver);
+    }
+}
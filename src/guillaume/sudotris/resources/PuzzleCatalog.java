@@ -0,0 +1,194 @@
+package guillaume.sudotris.resources;
+
+import guillaume.sudotris.fileio.GridPacker;
+import guillaume.sudotris.fileio.GridParser;
+import guillaume.sudotris.fileio.PuzzleFileReader;
+import guillaume.sudotris.metier.Difficulte;
+import guillaume.sudotris.metier.grid.Grid;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Catalogue en mémoire des grilles de jeu, indexé par difficulté. <br>
+ * Chaque dossier de difficulté est parcouru une seule fois, au premier accès : les grilles (fichiers <code>.txt</code>,
+ * et recueils <code>.sdk</code> d'une grille par ligne) y sont conservées compactées, avec leurs solutions lorsqu'elles
+ * sont connues (fichiers <code>_filled.txt</code>, ou solutions enregistrées après résolution). <br>
+ * Le tirage d'une grille se fait ensuite en temps constant, sans accès disque. Les instances sont thread-safe.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see GrilleFileProvider
+ * @see GridPacker
+ * @since 1.8
+ */
+public class PuzzleCatalog {
+    private final String root;
+    private final Map<Difficulte, Shelf> shelves = new ConcurrentHashMap<>();
+
+    /**
+     * Construit le catalogue des grilles rangées sous le dossier donné (un sous-dossier par difficulté).
+     *
+     * @param root le dossier racine des grilles
+     */
+    public PuzzleCatalog(String root) {
+        this.root = root;
+    }
+
+    /**
+     * Renvoie le nombre de grilles de la difficulté donnée.
+     *
+     * @param difficulte la difficulté
+     * @return le nombre de grilles
+     */
+    public int size(Difficulte difficulte) {
+        return shelf(difficulte).size;
+    }
+
+    /**
+     * Tire au hasard l'index d'une grille de la difficulté donnée.
+     *
+     * @param difficulte la difficulté
+     * @return l'index de la grille tirée
+     * @throws IllegalStateException s'il n'existe aucune grille de cette difficulté
+     */
+    public int pick(Difficulte difficulte) {
+        final Shelf shelf = shelf(difficulte);
+        if (shelf.size == 0) {
+            throw new IllegalStateException("Aucune grille de difficulté " + difficulte);
+        }
+        return ThreadLocalRandom.current().nextInt(shelf.size);
+    }
+
+    /**
+     * Copie les cases de la grille d'index donné.
+     *
+     * @param difficulte la difficulté
+     * @param index      l'index de la grille
+     * @param cells      les 81 cases à remplir
+     */
+    public void getPuzzle(Difficulte difficulte, int index, byte[] cells) {
+        GridPacker.unpack(shelf(difficulte).puzzles, index * GridPacker.PACKED_SIZE, cells);
+    }
+
+    /**
+     * Copie la solution de la grille d'index donné, si elle est connue.
+     *
+     * @param difficulte la difficulté
+     * @param index      l'index de la grille
+     * @param cells      les 81 cases à remplir
+     * @return <code>vrai</code> si la solution est connue, et a été copiée; <br>
+     * <code>faux</code> sinon
+     */
+    public boolean getSolution(Difficulte difficulte, int index, byte[] cells) {
+        final Shelf shelf = shelf(difficulte);
+        synchronized (shelf) {
+            if (!shelf.solved[index]) {
+                return false;
+            }
+            GridPacker.unpack(shelf.solutions, index * GridPacker.PACKED_SIZE, cells);
+            return true;
+        }
+    }
+
+    /**
+     * Enregistre la solution de la grille d'index donné, pour les tirages suivants.
+     *
+     * @param difficulte la difficulté
+     * @param index      l'index de la grille
+     * @param cells      les 81 cases de la solution
+     */
+    public void putSolution(Difficulte difficulte, int index, byte[] cells) {
+        final Shelf shelf = shelf(difficulte);
+        synchronized (shelf) {
+            GridPacker.pack(cells, shelf.solutions, index * GridPacker.PACKED_SIZE);
+            shelf.solved[index] = true;
+        }
+    }
+
+    /**
+     * Renvoie les grilles de la difficulté donnée, en les indexant au premier accès.
+     *
+     * @param difficulte la difficulté
+     * @return les grilles de la difficulté
+     */
+    private Shelf shelf(Difficulte difficulte) {
+        return shelves.computeIfAbsent(difficulte, key -> {
+            final Shelf shelf = new Shelf();
+            shelf.index(new File(root, key.name().toLowerCase()));
+            return shelf;
+        });
+    }
+
+    /**
+     * Grilles compactées d'une difficulté, et leurs solutions.
+     */
+    private static final class Shelf {
+        private byte[] puzzles = new byte[16 * GridPacker.PACKED_SIZE];
+        private byte[] solutions = new byte[16 * GridPacker.PACKED_SIZE];
+        private boolean[] solved = new boolean[16];
+        private int size;
+
+        /**
+         * Parcourt le dossier donné, et y indexe toutes les grilles.
+         *
+         * @param folder le dossier de la difficulté
+         */
+        void index(File folder) {
+            final File[] files = folder.listFiles((dir, name) ->
+                    (name.endsWith(".txt") && !name.contains("filled")) || name.endsWith(".sdk"));
+            if (files == null) {
+                return;
+            }
+            Arrays.sort(files);
+
+            final byte[] cells = new byte[Grid.SIZE];
+            for (File file : files) {
+                final Path path = file.toPath();
+                if (file.getName().endsWith(".sdk")) {
+                    try (PuzzleFileReader reader = new PuzzleFileReader(path)) {
+                        while (reader.next(cells)) {
+                            if (reader.isValid()) {
+                                add(cells, null);
+                            }
+                        }
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                } else {
+                    final byte[] puzzle = GridParser.parseFileToCells(path);
+                    if (puzzle.length != Grid.SIZE) {
+                        // Le catalogue ne contient que des grilles 9x9 : les grilles plus grandes se chargent par fichier
+                        continue;
+                    }
+                    final File filled = GrilleFileProvider.getFilledGridPath(path).toFile();
+                    add(puzzle, filled.isFile() ? GridParser.parseFileToCells(filled.toPath()) : null);
+                }
+            }
+
+            puzzles = Arrays.copyOf(puzzles, size * GridPacker.PACKED_SIZE);
+            solutions = Arrays.copyOf(solutions, size * GridPacker.PACKED_SIZE);
+            solved = Arrays.copyOf(solved, size);
+        }
+
+        private void add(byte[] puzzle, byte[] solution) {
+            if (size == solved.length) {
+                puzzles = Arrays.copyOf(puzzles, puzzles.length * 2);
+                solutions = Arrays.copyOf(solutions, solutions.length * 2);
+                solved = Arrays.copyOf(solved, solved.length * 2);
+            }
+
+            GridPacker.pack(puzzle, puzzles, size * GridPacker.PACKED_SIZE);
+            if (solution != null) {
+                GridPacker.pack(solution, solutions, size * GridPacker.PACKED_SIZE);
+                solved[size] = true;
+            }
+            size++;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package guillaume.sudotris.resources;
+
+import guillaume.sudotris.fileio.GridPacker;
+import guillaume.sudotris.metier.grid.Grid;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache borné des solutions de grilles, indexé par forme canonique : toutes les grilles équivalentes
+ * (renommage des chiffres, permutation des bandes et des piles, transposition) partagent la même entrée. <br>
+ * Grilles et solutions sont conservées compactées; au-delà de la capacité, la solution la moins récemment utilisée
+ * est évincée. Les instances sont thread-safe.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see CanonicalForm
+ * @see CachingSolver
+ * @since 1.8
+ */
+public class SolutionCache {
+    /**
+     * Capacité du cache partagé.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final SolutionCache SHARED = new SolutionCache(DEFAULT_CAPACITY);
+
+    private final Map<Key, byte[]> solutions;
+    private long hits;
+    private long misses;
+
+    /**
+     * Construit un cache de capacité donnée.
+     *
+     * @param capacity le nombre maximal de solutions conservées
+     */
+    public SolutionCache(int capacity) {
+        this.solutions = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Renvoie le cache partagé par les grilles de jeu.
+     *
+     * @return le cache partagé
+     */
+    public static SolutionCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Cherche la solution de la grille dont la forme canonique est donnée.
+     *
+     * @param form     la forme canonique de la grille
+     * @param solution les 81 cases de la solution, à remplir (dans le repère de la grille d'origine)
+     * @return <code>vrai</code> si la solution était en cache; <br>
+     * <code>faux</code> sinon
+     */
+    public boolean get(CanonicalForm form, byte[] solution) {
+        final byte[] packed;
+        synchronized (this) {
+            packed = solutions.get(new Key(form.getCells()));
+            if (packed == null) {
+                misses++;
+                return false;
+            }
+            hits++;
+        }
+
+        final byte[] canonical = new byte[Grid.SIZE];
+        GridPacker.unpack(packed, 0, canonical);
+        form.fromCanonical(canonical, solution);
+        return true;
+    }
+
+    /**
+     * Enregistre la solution de la grille dont la forme canonique est donnée.
+     *
+     * @param form     la forme canonique de la grille
+     * @param solution les 81 cases de la solution (dans le repère de la grille d'origine)
+     */
+    public void put(CanonicalForm form, byte[] solution) {
+        final byte[] canonical = new byte[Grid.SIZE];
+        form.toCanonical(solution, canonical);
+
+        final byte[] packed = new byte[GridPacker.PACKED_SIZE];
+        GridPacker.pack(canonical, packed, 0);
+        final Key key = new Key(form.getCells());
+
+        synchronized (this) {
+            solutions.put(key, packed);
+        }
+    }
+
+    /**
+     * Renvoie le nombre de solutions en cache.
+     *
+     * @return le nombre de solutions en cache
+     */
+    public synchronized int size() {
+        return solutions.size();
+    }
+
+    /**
+     * Renvoie le nombre de recherches ayant trouvé une solution en cache.
+     *
+     * @return le nombre de succès
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Renvoie le nombre de recherches n'ayant pas trouvé de solution en cache.
+     *
+     * @return le nombre d'échecs
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Vide le cache.
+     */
+    public synchronized void clear() {
+        solutions.clear();
+    }
+
+    /**
+     * Clé du cache : forme canonique compactée.
+     */
+    private static final class Key {
+        private final byte[] packed = new byte[GridPacker.PACKED_SIZE];
+        private final int hash;
+
+        Key(byte[] cells) {
+            GridPacker.pack(cells, packed, 0);
+            hash = Arrays.hashCode(packed);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(packed, ((Key) obj).packed);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package guillaume.sudotris.resources;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Budget d'une résolution : nombre maximal de nœuds visités, échéance, et annulation coopérative. <br>
+ * Les moteurs de résolution consultent le budget périodiquement (tous les <code>CHECK_INTERVAL</code> nœuds),
+ * et interrompent leur recherche dès qu'il est épuisé : une grille malveillante ne peut ainsi pas monopoliser un thread.
+ * <br>
+ * Les instances sont thread-safe : <code>cancel()</code> peut être appelé depuis n'importe quel thread.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SolveStatus
+ * @since 1.8
+ */
+public final class SolveBudget {
+    /**
+     * Nombre de nœuds entre deux consultations du budget : une puissance de 2, moins 1, utilisable comme masque.
+     */
+    static final long CHECK_INTERVAL = (1 << 10) - 1;
+
+    /**
+     * Budget illimité des résolutions sans budget. Jamais annulé : il n'est pas exposé hors du paquetage.
+     */
+    static final SolveBudget UNBOUNDED = unlimited();
+
+    private final long maxNodes;
+    private final long deadline;
+    private final boolean hasDeadline;
+    private final SolveBudget parent;
+    private volatile boolean cancelled;
+
+    private SolveBudget(long maxNodes, long deadline, boolean hasDeadline, SolveBudget parent) {
+        this.maxNodes = maxNodes;
+        this.deadline = deadline;
+        this.hasDeadline = hasDeadline;
+        this.parent = parent;
+    }
+
+    /**
+     * Crée un budget illimité, seulement annulable.
+     *
+     * @return un budget illimité
+     */
+    public static SolveBudget unlimited() {
+        return new SolveBudget(Long.MAX_VALUE, 0, false, null);
+    }
+
+    /**
+     * Crée un budget limité en nombre de nœuds visités.
+     *
+     * @param maxNodes le nombre maximal de nœuds visités
+     * @return le budget
+     */
+    public static SolveBudget ofNodes(long maxNodes) {
+        return new SolveBudget(maxNodes, 0, false, null);
+    }
+
+    /**
+     * Crée un budget limité en durée, à compter de maintenant.
+     *
+     * @param timeout la durée maximale de la résolution
+     * @param unit    l'unité de la durée
+     * @return le budget
+     */
+    public static SolveBudget ofTimeout(long timeout, TimeUnit unit) {
+        return new SolveBudget(Long.MAX_VALUE, System.nanoTime() + unit.toNanos(timeout), true, null);
+    }
+
+    /**
+     * Crée un budget limité en nombre de nœuds visités et en durée, à compter de maintenant.
+     *
+     * @param maxNodes le nombre maximal de nœuds visités
+     * @param timeout  la durée maximale de la résolution
+     * @param unit     l'unité de la durée
+     * @return le budget
+     */
+    public static SolveBudget of(long maxNodes, long timeout, TimeUnit unit) {
+        return new SolveBudget(maxNodes, System.nanoTime() + unit.toNanos(timeout), true, null);
+    }
+
+    /**
+     * Crée un budget dérivé de celui-ci : même échéance et même limite de nœuds (par recherche), annulé avec
+     * celui-ci, mais annulable seul. Permet d'interrompre les sous-recherches d'une résolution parallèle sans annuler
+     * la résolution elle-même.
+     *
+     * @return le budget dérivé
+     */
+    SolveBudget fork() {
+        return new SolveBudget(maxNodes, deadline, hasDeadline, this);
+    }
+
+    /**
+     * Annule la résolution : le moteur l'interrompra à sa prochaine consultation du budget.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Indique si la résolution a été annulée.
+     *
+     * @return <code>vrai</code> si la résolution a été annulée; <br>
+     * <code>faux</code> sinon
+     */
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    /**
+     * Indique si le budget est épuisé.
+     *
+     * @param nodes le nombre de nœuds visités jusqu'ici
+     * @return <code>vrai</code> si la résolution a été annulée, a visité trop de nœuds, ou a dépassé son échéance; <br>
+     * <code>faux</code> sinon
+     */
+    public boolean isExhausted(long nodes) {
+        return isCancelled() || nodes > maxNodes || (hasDeadline && System.nanoTime() - deadline > 0);
+    }
+
+    /**
+     * Renvoie l'issue d'une recherche interrompue par ce budget.
+     *
+     * @return CANCELLED si la résolution a été annulée, BUDGET_EXHAUSTED sinon
+     */
+    SolveStatus interruption() {
+        return isCancelled() ? SolveStatus.CANCELLED : SolveStatus.BUDGET_EXHAUSTED;
+    }
+}
@@ -0,0 +1,29 @@
+package guillaume.sudotris.resources;
+
+/**
+ * Issue d'une résolution soumise à un budget.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SolveBudget
+ * @see Solver#solve(byte[], SolveBudget)
+ * @since 1.8
+ */
+public enum SolveStatus {
+    /**
+     * La grille a été résolue.
+     */
+    SOLVED,
+    /**
+     * La grille est incohérente, ou n'a pas de solution.
+     */
+    NO_SOLUTION,
+    /**
+     * Le budget (nombre de nœuds ou échéance) a été épuisé avant la fin de la recherche.
+     */
+    BUDGET_EXHAUSTED,
+    /**
+     * La recherche a été annulée.
+     */
+    CANCELLED
+}
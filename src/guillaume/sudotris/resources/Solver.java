@@ -0,0 +1,72 @@
+package guillaume.sudotris.resources;
+
+/**
+ * Interface commune aux moteurs de résolution de grille. <br>
+ * Une grille est représentée par un tableau de 81 cases lu ligne par ligne, où 0 représente une case vide. <br>
+ * Les implémentations peuvent conserver un état interne réutilisé d'une grille à l'autre :
+ * elles ne sont pas thread-safe, sauf mention contraire. <br>
+ * Chaque recherche produit des statistiques (c.f. SolverStatistics), agrégées par moteur dans les métriques JMX.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see BitmaskSolver
+ * @see DancingLinksSolver
+ * @since 1.8
+ */
+public interface Solver {
+    /**
+     * Résoud la grille donnée, en place. La grille n'est modifiée que si une solution a été trouvée.
+     *
+     * @param grid les 81 cases de la grille à résoudre
+     * @return <code>vrai</code> si la grille a été résolue; <br>
+     * <code>faux</code> sinon (grille incohérente ou sans solution)
+     */
+    boolean solve(byte[] grid);
+
+    /**
+     * Résoud la grille donnée, en place, dans la limite du budget donné. La grille n'est modifiée que si une solution
+     * a été trouvée. <br>
+     * Le budget est consulté périodiquement : la recherche s'interrompt peu après son épuisement ou son annulation.
+     *
+     * @param grid   les 81 cases de la grille à résoudre
+     * @param budget le budget de la résolution
+     * @return l'issue de la résolution
+     */
+    SolveStatus solve(byte[] grid, SolveBudget budget);
+
+    /**
+     * Compte les solutions de la grille donnée, en s'arrêtant dès que la limite est atteinte. <br>
+     * Vérifier l'unicité d'une solution revient ainsi à compter jusqu'à 2. La grille n'est pas modifiée.
+     *
+     * @param grid  les 81 cases de la grille
+     * @param limit le nombre de solutions au-delà duquel la recherche s'arrête
+     * @return le nombre de solutions trouvées, au plus <code>limit</code> (0 si la grille est incohérente)
+     */
+    int countSolutions(byte[] grid, int limit);
+
+    /**
+     * Compte les solutions de la grille donnée, en s'arrêtant dès que la limite est atteinte, et écrit en place la
+     * première solution trouvée : résoudre une grille et vérifier l'unicité de sa solution ne coûte ainsi qu'une
+     * recherche. La grille n'est modifiée que si une solution a été trouvée. <br>
+     * L'implémentation par défaut enchaîne un comptage et une résolution.
+     *
+     * @param grid  les 81 cases de la grille, résolue en place
+     * @param limit le nombre de solutions au-delà duquel la recherche s'arrête
+     * @return le nombre de solutions trouvées, au plus <code>limit</code> (0 si la grille est incohérente)
+     */
+    default int solveAndCount(byte[] grid, int limit) {
+        final int count = countSolutions(grid, limit);
+        if (count > 0) {
+            solve(grid);
+        }
+        return count;
+    }
+
+    /**
+     * Renvoie les statistiques de la dernière recherche (résolution ou comptage) de ce moteur.
+     *
+     * @return les statistiques de la dernière recherche, ou SolverStatistics.NONE si aucune n'a eu lieu
+     * @see SolverMetrics
+     */
+    SolverStatistics getStatistics();
+}
@@ -0,0 +1,185 @@
+package guillaume.sudotris.resources;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Agrégation des statistiques de recherche d'un moteur de résolution, publiée par JMX sous le nom
+ * <code>guillaume.sudotris:type=SolverMetrics,engine=&lt;moteur&gt;</code>. <br>
+ * Une seule instance existe par moteur; l'enregistrement est thread-safe et sans verrou
+ * (compteurs LongAdder), afin de pouvoir être appelé à chaque recherche, y compris en résolution en masse.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SolverStatistics
+ * @since 1.8
+ */
+public final class SolverMetrics implements SolverMetricsMXBean {
+    private static final int NB_BUCKETS = 40;
+    private static final Map<String, SolverMetrics> ENGINES = new ConcurrentHashMap<>();
+
+    private final String engine;
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder backtracks = new LongAdder();
+    private final LongAdder propagations = new LongAdder();
+    private final LongAdder wallNanos = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final LongAccumulator maxWallNanos = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxNodes = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] wallMicrosHistogram = newHistogram();
+    private final LongAdder[] nodesHistogram = newHistogram();
+
+    private SolverMetrics(String engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Renvoie les métriques du moteur donné, en les créant et en les publiant par JMX au premier appel.
+     *
+     * @param engine le nom du moteur de résolution
+     * @return les métriques du moteur
+     */
+    public static SolverMetrics forEngine(String engine) {
+        return ENGINES.computeIfAbsent(engine, name -> {
+            final SolverMetrics metrics = new SolverMetrics(name);
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+                        new ObjectName("guillaume.sudotris:type=SolverMetrics,engine=" + name));
+            } catch (JMException e) {
+                // Métriques toujours consultables directement, sans JMX
+            }
+            return metrics;
+        });
+    }
+
+    /**
+     * Enregistre les statistiques d'une recherche.
+     *
+     * @param statistics les statistiques de la recherche
+     */
+    public void record(SolverStatistics statistics) {
+        searches.increment();
+        nodes.add(statistics.getNodes());
+        backtracks.add(statistics.getBacktracks());
+        propagations.add(statistics.getPropagations());
+        wallNanos.add(statistics.getWallNanos());
+        if (statistics.getCpuNanos() > 0) {
+            cpuNanos.add(statistics.getCpuNanos());
+        }
+        maxWallNanos.accumulate(statistics.getWallNanos());
+        maxNodes.accumulate(statistics.getNodes());
+        maxDepth.accumulate(statistics.getMaxDepth());
+        wallMicrosHistogram[bucket(statistics.getWallNanos() / 1000)].increment();
+        nodesHistogram[bucket(statistics.getNodes())].increment();
+    }
+
+    @Override
+    public String getEngine() {
+        return engine;
+    }
+
+    @Override
+    public long getSearchCount() {
+        return searches.sum();
+    }
+
+    @Override
+    public long getTotalNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public long getTotalBacktracks() {
+        return backtracks.sum();
+    }
+
+    @Override
+    public long getTotalPropagations() {
+        return propagations.sum();
+    }
+
+    @Override
+    public long getTotalWallNanos() {
+        return wallNanos.sum();
+    }
+
+    @Override
+    public long getTotalCpuNanos() {
+        return cpuNanos.sum();
+    }
+
+    @Override
+    public long getMeanWallNanos() {
+        final long count = searches.sum();
+        return count == 0 ? 0 : wallNanos.sum() / count;
+    }
+
+    @Override
+    public long getMaxWallNanos() {
+        return maxWallNanos.get();
+    }
+
+    @Override
+    public long getMaxNodes() {
+        return maxNodes.get();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return (int) maxDepth.get();
+    }
+
+    @Override
+    public long[] getWallMicrosHistogram() {
+        return snapshot(wallMicrosHistogram);
+    }
+
+    @Override
+    public long[] getNodesHistogram() {
+        return snapshot(nodesHistogram);
+    }
+
+    @Override
+    public void reset() {
+        searches.reset();
+        nodes.reset();
+        backtracks.reset();
+        propagations.reset();
+        wallNanos.reset();
+        cpuNanos.reset();
+        maxWallNanos.reset();
+        maxNodes.reset();
+        maxDepth.reset();
+        for (int i = 0; i < NB_BUCKETS; i++) {
+            wallMicrosHistogram[i].reset();
+            nodesHistogram[i].reset();
+        }
+    }
+
+    private static int bucket(long value) {
+        return Math.min(64 - Long.numberOfLeadingZeros(Math.max(value, 0)), NB_BUCKETS - 1);
+    }
+
+    private static LongAdder[] newHistogram() {
+        final LongAdder[] histogram = new LongAdder[NB_BUCKETS];
+        for (int i = 0; i < NB_BUCKETS; i++) {
+            histogram[i] = new LongAdder();
+        }
+        return histogram;
+    }
+
+    private static long[] snapshot(LongAdder[] histogram) {
+        final long[] counts = new long[NB_BUCKETS];
+        for (int i = 0; i < NB_BUCKETS; i++) {
+            counts[i] = histogram[i].sum();
+        }
+        return counts;
+    }
+}
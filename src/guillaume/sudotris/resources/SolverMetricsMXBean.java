@@ -0,0 +1,111 @@
+package guillaume.sudotris.resources;
+
+/**
+ * Interface de supervision (JMX) des recherches d'un moteur de résolution : totaux, extrêmes, et histogrammes
+ * logarithmiques des temps de résolution et des nœuds visités. <br>
+ * Dans les histogrammes, la case <code>i</code> compte les recherches dont la valeur est comprise entre
+ * <code>2^(i - 1)</code> (inclus) et <code>2^i</code> (exclu); la case 0 compte les valeurs nulles.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SolverMetrics
+ * @since 1.8
+ */
+public interface SolverMetricsMXBean {
+    /**
+     * Renvoie le nom du moteur de résolution supervisé.
+     *
+     * @return le nom du moteur de résolution supervisé
+     */
+    String getEngine();
+
+    /**
+     * Renvoie le nombre de recherches enregistrées depuis la création ou la dernière remise à zéro.
+     *
+     * @return le nombre de recherches enregistrées
+     */
+    long getSearchCount();
+
+    /**
+     * Renvoie le nombre total de nœuds visités, toutes recherches confondues.
+     *
+     * @return le nombre total de nœuds visités
+     */
+    long getTotalNodes();
+
+    /**
+     * Renvoie le nombre total de retours arrière, toutes recherches confondues.
+     *
+     * @return le nombre total de retours arrière
+     */
+    long getTotalBacktracks();
+
+    /**
+     * Renvoie le nombre total de propagations de contraintes, toutes recherches confondues.
+     *
+     * @return le nombre total de propagations de contraintes
+     */
+    long getTotalPropagations();
+
+    /**
+     * Renvoie le temps écoulé cumulé des recherches.
+     *
+     * @return le temps écoulé total, en nanosecondes
+     */
+    long getTotalWallNanos();
+
+    /**
+     * Renvoie le temps CPU cumulé des recherches, nul si la propriété système <code>sudotris.cputime</code>
+     * n'est pas activée.
+     *
+     * @return le temps CPU total, en nanosecondes
+     */
+    long getTotalCpuNanos();
+
+    /**
+     * Renvoie le temps écoulé moyen d'une recherche.
+     *
+     * @return le temps écoulé moyen d'une recherche, en nanosecondes
+     */
+    long getMeanWallNanos();
+
+    /**
+     * Renvoie le temps écoulé de la recherche la plus lente.
+     *
+     * @return le temps écoulé de la recherche la plus lente, en nanosecondes
+     */
+    long getMaxWallNanos();
+
+    /**
+     * Renvoie le nombre de nœuds visités par la recherche la plus coûteuse.
+     *
+     * @return le nombre de nœuds de la recherche la plus coûteuse
+     */
+    long getMaxNodes();
+
+    /**
+     * Renvoie la profondeur maximale atteinte dans l'arbre de recherche.
+     *
+     * @return la profondeur maximale atteinte, toutes recherches confondues
+     */
+    int getMaxDepth();
+
+    /**
+     * Renvoie l'histogramme logarithmique des temps écoulés par recherche.
+     *
+     * @return l'histogramme des temps écoulés, en microsecondes
+     */
+    long[] getWallMicrosHistogram();
+
+    /**
+     * Renvoie l'histogramme logarithmique des nœuds visités par recherche.
+     *
+     * @return l'histogramme des nœuds visités
+     */
+    long[] getNodesHistogram();
+
+    /**
+     * Remet à zéro les compteurs.
+     */
+    void reset();
+}
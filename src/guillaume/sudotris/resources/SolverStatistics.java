@@ -0,0 +1,142 @@
+package guillaume.sudotris.resources;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Statistiques d'une recherche d'un moteur de résolution : nœuds visités, retours arrière, profondeur maximale,
+ * propagations de contraintes, temps écoulé et temps CPU. <br>
+ * Le temps CPU coûte deux appels à ThreadMXBean par recherche : il n'est mesuré que si la propriété système
+ * <code>sudotris.cputime</code> vaut <code>true</code>; les compteurs et le temps écoulé le sont toujours. <br>
+ * Les instances sont immuables.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see Solver#getStatistics()
+ * @see SolverMetrics
+ * @since 1.8
+ */
+public final class SolverStatistics {
+    /**
+     * Propriété système activant (<code>true</code>) la mesure du temps CPU des recherches.
+     */
+    public static final String CPU_TIME_PROPERTY = "sudotris.cputime";
+
+    private static final ThreadMXBean THREADS = Boolean.getBoolean(CPU_TIME_PROPERTY)
+            ? ManagementFactory.getThreadMXBean() : null;
+    private static final boolean CPU_TIME = THREADS != null && THREADS.isCurrentThreadCpuTimeSupported();
+
+    /**
+     * Statistiques d'une recherche qui n'a pas eu lieu.
+     */
+    public static final SolverStatistics NONE = new SolverStatistics(0, 0, 0, 0, 0, 0);
+
+    private final long nodes;
+    private final long backtracks;
+    private final int maxDepth;
+    private final long propagations;
+    private final long wallNanos;
+    private final long cpuNanos;
+
+    /**
+     * Construit les statistiques d'une recherche.
+     *
+     * @param nodes        le nombre de nœuds visités
+     * @param backtracks   le nombre de retours arrière
+     * @param maxDepth     la profondeur maximale atteinte
+     * @param propagations le nombre de propagations de contraintes
+     * @param wallNanos    le temps écoulé, en nanosecondes
+     * @param cpuNanos     le temps CPU, en nanosecondes (-1 s'il n'est pas mesuré)
+     */
+    SolverStatistics(long nodes, long backtracks, int maxDepth, long propagations, long wallNanos, long cpuNanos) {
+        this.nodes = nodes;
+        this.backtracks = backtracks;
+        this.maxDepth = maxDepth;
+        this.propagations = propagations;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+    }
+
+    /**
+     * Indique si le temps CPU des recherches est mesuré.
+     *
+     * @return <code>vrai</code> si la propriété système <code>sudotris.cputime</code> est activée et que la JVM
+     * mesure le temps CPU des threads; <br>
+     * <code>faux</code> sinon
+     */
+    static boolean isCpuTimeMeasured() {
+        return CPU_TIME;
+    }
+
+    /**
+     * Renvoie le temps CPU consommé jusqu'ici par le thread courant.
+     *
+     * @return le temps CPU du thread courant en nanosecondes, ou -1 si la mesure est désactivée ou non
+     * supportée par la JVM
+     */
+    static long currentCpuTime() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Renvoie le nombre de nœuds visités : chaque chiffre essayé dans une case.
+     *
+     * @return le nombre de nœuds visités
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Renvoie le nombre de retours arrière : chaque case dont tous les candidats ont été essayés sans succès.
+     *
+     * @return le nombre de retours arrière
+     */
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * Renvoie la profondeur maximale atteinte dans l'arbre de recherche.
+     *
+     * @return la profondeur maximale
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Renvoie le nombre de propagations de contraintes : mises à jour des masques de lignes, colonnes et blocs pour
+     * les moteurs à masques de bits, couvertures de colonnes pour DancingLinksSolver.
+     *
+     * @return le nombre de propagations
+     */
+    public long getPropagations() {
+        return propagations;
+    }
+
+    /**
+     * Renvoie le temps écoulé pendant la recherche.
+     *
+     * @return le temps écoulé, en nanosecondes
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Renvoie le temps CPU consommé par la recherche (cumulé sur tous les threads pour ParallelSolver).
+     *
+     * @return le temps CPU en nanosecondes, ou -1 s'il n'est pas mesuré (c.f. {@link #CPU_TIME_PROPERTY})
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    @Override
+    public String toString() {
+        return nodes + " nœuds, " + backtracks + " retours arrière, profondeur " + maxDepth + ", "
+                + propagations + " propagations, " + wallNanos / 1000 + " µs"
+                + (cpuNanos < 0 ? "" : " (CPU " + cpuNanos / 1000 + " µs)");
+    }
+}
@@ -1,8 +1,6 @@
 package guillaume.sudotris.resources;
 
 import guillaume.sudotris.metier.element.Element;
-import guillaume.sudotris.metier.element.EmptyElement;
-import guillaume.sudotris.metier.element.NotEmptyElement;
 import guillaume.sudotris.metier.grid.Grid;
 
 /**
@@ -19,10 +17,25 @@ public class SudokuSolver {
      * La matrice à résoudre.
      */
     private final Element[][] matrix;
-    private int nbIterations = 0;
+
+    /**
+     * Côté de la matrice (9 pour une grille 9x9), et côté de ses blocs (3 pour une grille 9x9).
+     */
+    private final int side;
+    private final int order;
+
+    /**
+     * Compteurs de la résolution, et statistiques de la dernière résolution.
+     */
+    private long nodes;
+    private long backtracks;
+    private int maxDepth;
+    private SolverStatistics statistics = SolverStatistics.NONE;
 
     /**
      * Instancie le résolveur à partir d'une instance de la classe Grid. <br>
+     * La grille n'est pas modifiée : le résolveur travaille sur la vue renvoyée par <code>Grid#getMatrix()</code>,
+     * accessible ensuite via <code>SudokuSolver#getMatrix()</code>.
      *
      * @param grid la grille comportant la matrice à résoudre
      * @see SudokuSolver#SudokuSolver(Element[][] matrix)
@@ -36,10 +49,22 @@ public class SudokuSolver {
     /**
      * Instancie le résolveur à partir de la matrice à résoudre. <br>
      *
-     * @param matrix la matrice d'éléments à résoudre
+     * @param matrix la matrice d'éléments à résoudre, carrée de côté 9, 16 ou 25
+     * @throws IllegalArgumentException si le côté de la matrice n'est pas celui d'une grille supportée
      */
     public SudokuSolver(Element[][] matrix) {
         this.matrix = matrix;
+        this.side = matrix.length;
+        this.order = GridGeometry.ofSize(side * side).order;
+    }
+
+    /**
+     * Renvoie la matrice en cours de résolution (résolue après un appel réussi à <code>solveGrid()</code>).
+     *
+     * @return la matrice d'éléments du résolveur
+     */
+    public Element[][] getMatrix() {
+        return matrix;
     }
 
     /**
@@ -47,51 +72,76 @@ public class SudokuSolver {
      *
      * @return <code>vrai</code> si la grille a été résolue (toujours le cas sur 9x9); <br>
      * <code>faux</code> sinon
-     * @see SudokuSolver#solveGrid(byte)
+     * @see SudokuSolver#solveGrid(int, int)
+     * @see SudokuSolver#getStatistics()
      */
     public boolean solveGrid() {
-        final boolean solved = this.solveGrid((byte) 0);
-        System.out.printf("Grille résolue en %d itérations\n", nbIterations);
+        final long start = System.nanoTime();
+        final long cpuStart = SolverStatistics.currentCpuTime();
+        nodes = 0;
+        backtracks = 0;
+        maxDepth = 0;
+
+        final boolean solved = this.solveGrid(0, 0);
+
+        final long cpuEnd = SolverStatistics.currentCpuTime();
+        statistics = new SolverStatistics(nodes, backtracks, maxDepth, nodes, System.nanoTime() - start,
+                cpuStart < 0 ? -1 : cpuEnd - cpuStart);
+        SolverMetrics.forEngine("SudokuSolver").record(statistics);
         return solved;
     }
 
+    /**
+     * Renvoie les statistiques de la dernière résolution (les propagations sont ici les chiffres placés).
+     *
+     * @return les statistiques de la dernière résolution, ou SolverStatistics.NONE si aucune n'a eu lieu
+     */
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * Méthode privée appelée en interne. C'est l'algorithme de résolution. <br>
-     * Itère récursivement en cherchant à chaque fois une solution à la position donnée (0 -> 80). <br>
+     * Itère récursivement en cherchant à chaque fois une solution à la position donnée (0 -> 80 sur 9x9). <br>
      * Applique le principe de backtracking.
      *
      * @param position la position sur la grille de l'élément à trouver
+     * @param depth    la profondeur de recherche (nombre de cases vides remplies)
      * @return <code>vrai</code> lorsqu'une solution est trouvée à la position donnée; <br>
      * <code>faux</code> sinon
      */
-    private boolean solveGrid(byte position) {
-        if (position == 81) {
+    private boolean solveGrid(int position, int depth) {
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+        if (position == side * side) {
             return true;
         }
 
-        final byte line = (byte) (Math.floorDiv(position, 9));
-        final byte column = (byte) (Math.floorMod(position, 9));
+        final byte line = (byte) (Math.floorDiv(position, side));
+        final byte column = (byte) (Math.floorMod(position, side));
 
         if (!matrix[line][column].isEmpty()) {
-            return solveGrid((byte) (position + 1));
+            return solveGrid(position + 1, depth);
         }
 
-        // Itérons jusqu'à trouver le(s) chiffre(s) prétendants à la case
-        for (byte number = 1; number <= 9; number++) {
+        // Itérons jusqu'à trouver le(s) nombre(s) prétendants à la case
+        for (byte number = 1; number <= side; number++) {
             if (checkLine(line, number) && checkColumn(column, number) && checkSquare(line, column, number)) {
-                matrix[line][column] = new NotEmptyElement(line, column, number);
+                matrix[line][column] = Element.of(line, column, number);
 
-                nbIterations++;
+                nodes++;
 
                 // Si on a trouvé pour [line][column]
-                if (solveGrid((byte) (position + 1))) {
+                if (solveGrid(position + 1, depth + 1)) {
                     return true;
                 }
             }
         }
 
         // Si on n'a rien trouvé
-        matrix[line][column] = new EmptyElement(line, column);
+        matrix[line][column] = Element.empty(line, column);
+        backtracks++;
         return false;
     }
 
@@ -104,7 +154,7 @@ public class SudokuSolver {
      * <code>faux</code> sinon (mauvais nombre)
      */
     private boolean checkLine(byte line, byte number) {
-        for (int columnIndex = 0; columnIndex < 9; columnIndex++) {
+        for (int columnIndex = 0; columnIndex < side; columnIndex++) {
             if (matrix[line][columnIndex].getNumber() == number) {
                 return false;
             }
@@ -121,7 +171,7 @@ public class SudokuSolver {
      * <code>faux</code> sinon (mauvais nombre)
      */
     private boolean checkColumn(byte column, byte number) {
-        for (int lineIndex = 0; lineIndex < 9; lineIndex++) {
+        for (int lineIndex = 0; lineIndex < side; lineIndex++) {
             if (matrix[lineIndex][column].getNumber() == number) {
                 return false;
             }
@@ -130,7 +180,7 @@ public class SudokuSolver {
     }
 
     /**
-     * Vérifie que le nombre donné n'existe pas déjà sur le bloc 3x3. <br>
+     * Vérifie que le nombre donné n'existe pas déjà sur le bloc (3x3 sur une grille 9x9). <br>
      * Ce dernier est indentifié par la ligne et la colonne (quelqueconques du bloc) données.
      *
      * @param line   une ligne du bloc
@@ -140,11 +190,11 @@ public class SudokuSolver {
      * <code>faux</code> sinon (mauvais nombre)
      */
     private boolean checkSquare(byte line, byte column, byte number) {
-        final byte _ligne = (byte) (line - line % 3);
-        final byte _column = (byte) (column - column % 3);
+        final byte _ligne = (byte) (line - line % order);
+        final byte _column = (byte) (column - column % order);
 
-        for (int lineIndex = _ligne; lineIndex < _ligne + 3; lineIndex++) {
-            for (int colIndex = _column; colIndex < _column + 3; colIndex++) {
+        for (int lineIndex = _ligne; lineIndex < _ligne + order; lineIndex++) {
+            for (int colIndex = _column; colIndex < _column + order; colIndex++) {
                 if (matrix[lineIndex][colIndex].getNumber() == number) {
                     return false;
                 }
@@ -0,0 +1,267 @@
+package guillaume.sudotris.server;
+
+import guillaume.sudotris.metier.Difficulte;
+import guillaume.sudotris.metier.Hint;
+import guillaume.sudotris.metier.Sudotris;
+import guillaume.sudotris.metier.element.Element;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Traitement d'une connexion au serveur : lit les commandes ligne par ligne, et répond à chacune par une ligne
+ * commençant par <code>OK</code> ou <code>ERR</code>. <br>
+ * Les commandes (lignes et colonnes numérotées de 1 à 9, comme dans SudotrisIHM) :
+ * <ul>
+ * <li><code>INIT &lt;easy|medium|hard&gt; [partie]</code> : (ré)initialise une partie, créée si besoin;
+ * répond <code>OK &lt;partie&gt;</code></li>
+ * <li><code>PLACE &lt;partie&gt; &lt;ligne&gt; &lt;colonne&gt; &lt;chiffre&gt;</code> : place un élément;
+ * répond <code>OK true</code> ou <code>OK false</code></li>
+ * <li><code>GRID &lt;partie&gt;</code> : répond <code>OK</code> suivi des 81 cases, ligne par ligne
+ * (<code>.</code> pour une case vide)</li>
+ * <li><code>NUMBER &lt;partie&gt;</code> : répond <code>OK</code> suivi du chiffre à placer</li>
+ * <li><code>HINT &lt;partie&gt;</code> : répond <code>OK &lt;ligne&gt; &lt;colonne&gt; &lt;chiffre&gt;
+ * &lt;technique&gt;</code>, ou <code>OK NONE</code> si la grille est remplie</li>
+ * <li><code>FINISHED &lt;partie&gt;</code> : répond <code>OK true</code> si la partie est terminée</li>
+ * <li><code>CLOSE &lt;partie&gt;</code> : termine la partie</li>
+ * <li><code>QUIT</code> : ferme la connexion</li>
+ * </ul>
+ * Une connexion peut piloter plusieurs parties, et une partie peut être reprise depuis une autre connexion.
+ * Une ligne de plus de 256 caractères reçoit <code>ERR</code> et ferme la connexion.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SudotrisServer
+ * @since 1.8
+ */
+class ConnectionHandler implements Runnable {
+    /**
+     * Commandes portant sur une partie existante.
+     */
+    private static final List<String> SESSION_COMMANDS = Arrays.asList(
+            "PLACE", "GRID", "NUMBER", "HINT", "FINISHED", "CLOSE");
+    /**
+     * Longueur maximale d'une ligne de commande, en caractères : au-delà, la connexion est fermée.
+     */
+    private static final int MAX_LINE_LENGTH = 256;
+
+    private final Socket socket;
+    private final SessionRegistry sessions;
+
+    /**
+     * Construit le traitement d'une connexion.
+     *
+     * @param socket   la connexion
+     * @param sessions le registre des parties
+     */
+    ConnectionHandler(Socket socket, SessionRegistry sessions) {
+        this.socket = socket;
+        this.sessions = sessions;
+    }
+
+    @Override
+    public void run() {
+        try (Socket client = socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8))) {
+            final StringBuilder buffer = new StringBuilder(MAX_LINE_LENGTH);
+            while (true) {
+                final String line;
+                try {
+                    line = readLine(in, buffer);
+                } catch (IllegalArgumentException e) {
+                    respond(out, "ERR " + e.getMessage());
+                    break;
+                }
+                if (line == null) {
+                    break;
+                }
+                final String[] command = line.trim().split("\\s+");
+                if ("QUIT".equalsIgnoreCase(command[0])) {
+                    break;
+                }
+                if (command[0].isEmpty()) {
+                    continue;
+                }
+
+                String response;
+                try {
+                    response = "OK " + execute(command);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    response = "ERR " + e.getMessage();
+                }
+                respond(out, response);
+            }
+        } catch (IOException e) {
+            // Connexion interrompue par le client : les parties restent disponibles jusqu'à leur éviction
+        }
+    }
+
+    /**
+     * Lit une ligne, terminée par <code>\n</code> ou <code>\r\n</code>, sans jamais conserver plus de
+     * {@link #MAX_LINE_LENGTH} caractères.
+     *
+     * @param in     le flux de la connexion
+     * @param buffer le tampon de lecture, réutilisé d'une ligne à l'autre
+     * @return la ligne, sans son terminateur, ou <code>null</code> en fin de flux
+     * @throws IOException              si la lecture échoue
+     * @throws IllegalArgumentException si la ligne dépasse {@link #MAX_LINE_LENGTH} caractères
+     */
+    private static String readLine(BufferedReader in, StringBuilder buffer) throws IOException {
+        buffer.setLength(0);
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                return buffer.length() == 0 ? null : buffer.toString();
+            }
+            if (buffer.length() == MAX_LINE_LENGTH) {
+                throw new IllegalArgumentException("Ligne trop longue");
+            }
+            buffer.append((char) c);
+        }
+        final int length = buffer.length();
+        if (length > 0 && buffer.charAt(length - 1) == '\r') {
+            buffer.setLength(length - 1);
+        }
+        return buffer.toString();
+    }
+
+    private static void respond(Writer out, String response) throws IOException {
+        out.write(response);
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Exécute une commande.
+     *
+     * @param command la commande et ses arguments
+     * @return la réponse, sans le préfixe <code>OK</code>
+     * @throws IllegalArgumentException si la commande, ses arguments ou la partie sont invalides
+     * @throws IllegalStateException    si la commande ne peut être exécutée dans l'état de la partie
+     */
+    private String execute(String[] command) {
+        final String name = command[0].toUpperCase(Locale.ROOT);
+        if ("INIT".equals(name)) {
+            return init(command);
+        }
+        if (!SESSION_COMMANDS.contains(name)) {
+            throw new IllegalArgumentException("Commande inconnue : " + command[0]);
+        }
+
+        final Session session = session(command);
+        final Sudotris sudotris = session.getSudotris();
+        synchronized (session) {
+            if (sudotris.getDifficulte() == null) {
+                throw new IllegalStateException("Partie non initialisée");
+            }
+            switch (name) {
+                case "PLACE":
+                    arguments(command, 5);
+                    final Element placed = Element.of((byte) (parse(command[2], 1, 9) - 1),
+                            (byte) (parse(command[3], 1, 9) - 1), parse(command[4], 1, 9));
+                    sessions.checkJournal();
+                    final boolean accepted = sudotris.placeElement(placed);
+                    if (accepted) {
+                        try {
+                            sessions.recordMove(session, placed);
+                        } catch (IllegalStateException e) {
+                            // Journal défaillant depuis la vérification : le coup est joué, la commande suivante
+                            // signalera l'erreur
+                        }
+                    }
+                    return String.valueOf(accepted);
+                case "GRID":
+                    return render(sudotris.getDrawableGrid());
+                case "NUMBER":
+                    return String.valueOf(sudotris.getNumberToPlace());
+                case "HINT":
+                    final Hint hint = sudotris.nextHint();
+                    if (hint == null) {
+                        return "NONE";
+                    }
+                    final Element element = hint.getElement();
+                    return (element.getLine() + 1) + " " + (element.getColumn() + 1) + " " + element.getNumber()
+                            + " " + hint.getTechnique();
+                case "FINISHED":
+                    return String.valueOf(sudotris.isFinished());
+                case "CLOSE":
+                    sessions.remove(session.getId());
+                    return session.getId();
+                default:
+                    throw new IllegalArgumentException("Commande inconnue : " + command[0]);
+            }
+        }
+    }
+
+    private String init(String[] command) {
+        arguments(command, 2);
+        final Difficulte difficulte;
+        try {
+            difficulte = Difficulte.valueOf(command[1].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Difficulté inconnue : " + command[1]);
+        }
+
+        final Session session = command.length > 2 ? session(command[2]) : sessions.create();
+        synchronized (session) {
+            sessions.checkJournal();
+            session.getSudotris().init(difficulte);
+            sessions.recordStart(session);
+        }
+        return session.getId();
+    }
+
+    private Session session(String[] command) {
+        arguments(command, 2);
+        return session(command[1]);
+    }
+
+    private Session session(String id) {
+        final Session session = sessions.get(id);
+        if (session == null) {
+            throw new IllegalArgumentException("Partie inconnue : " + id);
+        }
+        return session;
+    }
+
+    private static void arguments(String[] command, int count) {
+        if (command.length < count) {
+            throw new IllegalArgumentException("Arguments manquants pour " + command[0]);
+        }
+    }
+
+    private static int parse(String number, int min, int max) {
+        final int value;
+        try {
+            value = Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Nombre invalide : " + number);
+        }
+        if (value < min || value > max) {
+            throw new IllegalArgumentException("Nombre hors limites : " + number);
+        }
+        return value;
+    }
+
+    private static String render(Element[][] matrix) {
+        final StringBuilder builder = new StringBuilder(matrix.length * matrix.length);
+        for (Element[] line : matrix) {
+            for (Element element : line) {
+                builder.append(element.isEmpty() ? '.' : (char) ('0' + element.getNumber()));
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,579 @@
+package guillaume.sudotris.server;
+
+import guillaume.sudotris.fileio.GameSnapshot;
+import guillaume.sudotris.metier.Sudotris;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Journal binaire, en ajout seul, des parties servies : début de partie (sauvegarde de la partie, c.f. GameSnapshot),
+ * coups acceptés, fin de partie. Après un arrêt brutal, les parties en cours sont reconstruites en rejouant le journal. <br>
+ * <b>Validation groupée :</b> les enregistrements sont ajoutés à un tampon en mémoire, écrit puis synchronisé sur disque
+ * (<code>FileChannel#force</code>) par un thread dédié, toutes les <code>syncIntervalMillis</code> millisecondes ou dès
+ * que <code>syncBatch</code> enregistrements sont en attente : un arrêt brutal perd au plus ces derniers coups, mais
+ * un coup ne coûte jamais une synchronisation à lui seul. <br>
+ * <b>Compaction :</b> le journal est formé d'une base (l'état de chaque partie en cours, un enregistrement par partie) et
+ * d'un journal des enregistrements suivants. Dès que ce dernier dépasse la taille de la base (et au moins
+ * <code>COMPACTION_THRESHOLD</code> octets), il est fusionné dans une nouvelle base par un thread dédié, sans bloquer
+ * les ajouts ni leur synchronisation : le temps de reprise reste proportionnel au nombre de parties en cours, et non
+ * au nombre de coups joués. Les parties inactives depuis plus longtemps que le délai de rétention sont alors oubliées.
+ * <br>
+ * Chaque journal porte un numéro de génération dans son en-tête, et la base celui du dernier journal fusionné : la
+ * reprise ignore les journaux déjà couverts par la base, et rejouer le journal reste idempotent quel que soit le
+ * moment de l'arrêt. <br>
+ * Format d'un enregistrement : longueur (2 octets), type (1 octet), date (8 octets), identifiant de la partie
+ * (1 octet de longueur puis l'identifiant), contenu, puis CRC32 (4 octets) de tout ce qui suit la longueur. Un
+ * enregistrement tronqué ou corrompu en fin de journal (arrêt pendant une écriture) est ignoré, et le journal tronqué
+ * à la reprise. <br>
+ * Seules les grilles 9x9 sont journalisées, et seuls les coups acceptés sont comptés à la reprise. Les instances sont
+ * thread-safe.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SessionRegistry
+ * @since 1.8
+ */
+public class MoveJournal implements Closeable {
+    /**
+     * Intervalle par défaut entre deux synchronisations : 100 millisecondes.
+     */
+    public static final long DEFAULT_SYNC_INTERVAL = 100;
+    /**
+     * Nombre par défaut d'enregistrements en attente déclenchant une synchronisation anticipée.
+     */
+    public static final int DEFAULT_SYNC_BATCH = 1024;
+    /**
+     * Taille minimale du journal, en octets, avant sa fusion dans la base.
+     */
+    public static final long COMPACTION_THRESHOLD = 4L << 20;
+
+    private static final int MAGIC = 0x53444a33;
+    private static final int HEADER_SIZE = 4 + 8;
+
+    private static final byte START = 1;
+    private static final byte MOVE = 2;
+    private static final byte END = 3;
+
+    /**
+     * Visiteur des parties reconstruites par <code>recover</code>.
+     */
+    public interface Visitor {
+        /**
+         * Reçoit l'état d'une partie en cours.
+         *
+         * @param id         l'identifiant de la partie
+         * @param snapshot   la sauvegarde de la partie, à partir de la position 0 (c.f. GameSnapshot)
+         * @param lastAccess la date du dernier enregistrement de la partie, en millisecondes
+         */
+        void session(String id, ByteBuffer snapshot, long lastAccess);
+    }
+
+    private final Path base;
+    private final Path log;
+    private final Path rotated;
+    private final long retentionMillis;
+    private final long syncIntervalMillis;
+    private final int syncBatch;
+
+    /**
+     * Tampon des enregistrements en attente, et nombre d'enregistrements qu'il contient. Protégés par
+     * <code>this</code>.
+     */
+    private ByteBuffer pending = ByteBuffer.allocate(64 << 10);
+    private int pendingRecords;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Tampon en cours d'écriture, journal ouvert et sa génération : utilisés par le seul thread d'écriture.
+     */
+    private ByteBuffer writing = ByteBuffer.allocate(64 << 10);
+    private FileChannel channel;
+    private long generation;
+
+    /**
+     * Taille de la dernière base, et fusion en cours : écrites par le thread de fusion.
+     */
+    private volatile long baseSize;
+    private volatile boolean compacting;
+
+    private final Thread flusher;
+    private final ExecutorService compactor;
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Ouvre le journal du dossier donné, avec l'intervalle et le lot de synchronisation par défaut.
+     *
+     * @param directory       le dossier du journal, créé si besoin
+     * @param retentionMillis le délai d'inactivité au-delà duquel une partie est oubliée, en millisecondes
+     * @throws IOException si le journal ne peut être lu ou créé
+     */
+    public MoveJournal(Path directory, long retentionMillis) throws IOException {
+        this(directory, retentionMillis, DEFAULT_SYNC_INTERVAL, DEFAULT_SYNC_BATCH);
+    }
+
+    /**
+     * Ouvre le journal du dossier donné. Le journal existant est d'abord fusionné dans la base, et ses éventuels
+     * enregistrements incomplets écartés.
+     *
+     * @param directory          le dossier du journal, créé si besoin
+     * @param retentionMillis    le délai d'inactivité au-delà duquel une partie est oubliée, en millisecondes
+     * @param syncIntervalMillis l'intervalle maximal entre deux synchronisations sur disque, en millisecondes
+     * @param syncBatch          le nombre d'enregistrements en attente déclenchant une synchronisation anticipée
+     * @throws IOException si le journal ne peut être lu ou créé
+     */
+    public MoveJournal(Path directory, long retentionMillis, long syncIntervalMillis, int syncBatch)
+            throws IOException {
+        if (syncIntervalMillis <= 0 || syncBatch <= 0) {
+            throw new IllegalArgumentException("Intervalle et lot de synchronisation doivent être positifs");
+        }
+        Files.createDirectories(directory);
+        this.base = directory.resolve("journal.base");
+        this.log = directory.resolve("journal.log");
+        this.rotated = directory.resolve("journal.log.old");
+        this.retentionMillis = retentionMillis;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.syncBatch = syncBatch;
+
+        final Replay replay = replay(base, rotated, log);
+        compact(replay.states, replay.generation);
+        Files.deleteIfExists(rotated);
+        generation = replay.generation + 1;
+        channel = openLog(generation);
+
+        compactor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "sudotris-journal-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher = new Thread(this::flushLoop, "sudotris-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Rejoue la base du journal : chaque partie en cours est transmise au visiteur donné. <br>
+     * À appeler à l'ouverture, avant tout nouvel enregistrement.
+     *
+     * @param visitor le visiteur des parties reconstruites
+     * @return le nombre de parties reconstruites
+     * @throws IOException si la base ne peut être lue
+     */
+    public int recover(Visitor visitor) throws IOException {
+        final Map<String, State> states = replay(base).states;
+        for (Map.Entry<String, State> entry : states.entrySet()) {
+            final State state = entry.getValue();
+            visitor.session(entry.getKey(), ByteBuffer.wrap(state.snapshot), state.lastAccess);
+        }
+        return states.size();
+    }
+
+    /**
+     * Enregistre le début (ou la réinitialisation) d'une partie : sa sauvegarde complète.
+     *
+     * @param id       l'identifiant de la partie
+     * @param sudotris la partie, initialisée (sur une grille 9x9)
+     * @throws IllegalStateException    si le journal est fermé, ou ne peut plus être écrit
+     * @throws IllegalArgumentException si la grille de la partie n'est pas une grille 9x9
+     * @see GameSnapshot#write(Sudotris, ByteBuffer, int)
+     */
+    public void start(String id, Sudotris sudotris) {
+        // Sauvegarde (et attente éventuelle de la solution) hors du verrou du journal
+        final ByteBuffer snapshot = ByteBuffer.allocate(GameSnapshot.SIZE);
+        GameSnapshot.write(sudotris, snapshot, 0);
+
+        synchronized (this) {
+            final int position = begin(START, id, GameSnapshot.SIZE);
+            pending.put(snapshot);
+            commit(position);
+        }
+    }
+
+    /**
+     * Enregistre un coup accepté.
+     *
+     * @param id     l'identifiant de la partie
+     * @param line   la ligne de l'élément placé
+     * @param column la colonne de l'élément placé
+     * @param number le nombre placé
+     * @throws IllegalStateException si le journal est fermé, ou ne peut plus être écrit
+     */
+    public synchronized void move(String id, int line, int column, int number) {
+        final int position = begin(MOVE, id, 3);
+        pending.put((byte) line).put((byte) column).put((byte) number);
+        commit(position);
+    }
+
+    /**
+     * Enregistre la fin d'une partie : elle ne sera pas reconstruite.
+     *
+     * @param id l'identifiant de la partie
+     * @throws IllegalStateException si le journal est fermé, ou ne peut plus être écrit
+     */
+    public synchronized void end(String id) {
+        commit(begin(END, id, 0));
+    }
+
+    /**
+     * Vérifie que le journal accepte encore des enregistrements.
+     *
+     * @throws IllegalStateException si le journal est fermé, ou ne peut plus être écrit
+     */
+    public synchronized void checkAvailable() {
+        if (closed || failure != null) {
+            throw new IllegalStateException("Journal des parties indisponible");
+        }
+    }
+
+    /**
+     * Ferme le journal, après l'écriture et la synchronisation des enregistrements en attente, et la fin de la fusion
+     * en cours.
+     *
+     * @throws IOException si la dernière écriture échoue
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+            compactor.shutdown();
+            compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Commence un enregistrement dans le tampon en attente : réserve la longueur, puis écrit l'en-tête.
+     *
+     * @param type    le type de l'enregistrement
+     * @param id      l'identifiant de la partie
+     * @param payload la taille maximale du contenu
+     * @return la position de l'enregistrement dans le tampon
+     */
+    private int begin(byte type, String id, int payload) {
+        checkAvailable();
+        final byte[] bytes = id.getBytes(StandardCharsets.US_ASCII);
+        ensureCapacity(2 + 1 + 8 + 1 + bytes.length + payload + 4);
+
+        final int position = pending.position();
+        pending.putShort((short) 0).put(type).putLong(System.currentTimeMillis())
+                .put((byte) bytes.length).put(bytes);
+        return position;
+    }
+
+    /**
+     * Termine l'enregistrement commencé à la position donnée : écrit sa longueur et son CRC, puis réveille le thread
+     * d'écriture si le lot de synchronisation est atteint.
+     *
+     * @param position la position de l'enregistrement dans le tampon
+     */
+    private void commit(int position) {
+        final int length = pending.position() - position - 2;
+        pending.putShort(position, (short) length);
+        crc.reset();
+        crc.update(pending.array(), position + 2, length);
+        pending.putInt((int) crc.getValue());
+
+        if (++pendingRecords >= syncBatch) {
+            notifyAll();
+        }
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (pending.remaining() < bytes) {
+            final ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+    }
+
+    /**
+     * Boucle du thread d'écriture : attend l'intervalle de synchronisation (ou le lot), échange les tampons, écrit et
+     * synchronise le journal, puis confie sa fusion dans la base au thread de fusion s'il est devenu trop grand.
+     */
+    private void flushLoop() {
+        boolean last = false;
+        while (!last) {
+            final boolean healthy;
+            synchronized (this) {
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+                long remaining;
+                while (!closed && pendingRecords < syncBatch
+                        && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                last = closed;
+                healthy = failure == null;
+
+                final ByteBuffer swap = pending;
+                pending = writing;
+                writing = swap;
+                pendingRecords = 0;
+            }
+
+            try {
+                writing.flip();
+                if (writing.hasRemaining()) {
+                    while (writing.hasRemaining()) {
+                        channel.write(writing);
+                    }
+                    channel.force(false);
+                }
+                writing.clear();
+
+                if (!last && healthy && !compacting && channel.size() > Math.max(COMPACTION_THRESHOLD, baseSize)) {
+                    rotate();
+                }
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+        }
+    }
+
+    private synchronized void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Fusionne le journal dans la base : le journal est renommé, et un nouveau journal, de génération suivante,
+     * reçoit aussitôt les enregistrements suivants. La nouvelle base est écrite par le thread de fusion, puis l'ancien
+     * journal supprimé. Une reprise pendant la fusion rejoue la base, l'ancien journal, puis le nouveau; une reprise
+     * après la substitution de la base ignore l'ancien journal, qu'elle couvre déjà.
+     *
+     * @throws IOException si le journal ne peut être renommé ou recréé
+     */
+    private void rotate() throws IOException {
+        channel.close();
+        Files.move(log, rotated, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        final long merged = generation;
+        channel = openLog(++generation);
+
+        compacting = true;
+        compactor.execute(() -> {
+            try {
+                compact(replay(base, rotated).states, merged);
+                Files.delete(rotated);
+            } catch (IOException e) {
+                // L'ancien journal est conservé : plus aucune fusion ne doit l'écraser
+                fail(e);
+            } finally {
+                compacting = false;
+            }
+        });
+    }
+
+    /**
+     * Écrit une nouvelle base depuis les états donnés (parties encore retenues seulement), puis la substitue
+     * atomiquement à l'ancienne.
+     *
+     * @param states     l'état de chaque partie en cours
+     * @param generation la génération du dernier journal fusionné dans ces états
+     * @throws IOException si la base ne peut être écrite
+     */
+    private void compact(Map<String, State> states, long generation) throws IOException {
+        final long limit = System.currentTimeMillis() - retentionMillis;
+        final Path temporary = base.resolveSibling("journal.base.tmp");
+        final ByteBuffer buffer = ByteBuffer.allocate(64 << 10);
+        final CRC32 checksum = new CRC32();
+
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC).putLong(generation);
+            for (Map.Entry<String, State> entry : states.entrySet()) {
+                final State state = entry.getValue();
+                if (state.lastAccess < limit) {
+                    continue;
+                }
+                if (buffer.remaining() < 512) {
+                    drain(buffer, out);
+                }
+                final byte[] id = entry.getKey().getBytes(StandardCharsets.US_ASCII);
+                final int position = buffer.position();
+                buffer.putShort((short) 0).put(START).putLong(state.lastAccess).put((byte) id.length).put(id);
+                buffer.put(state.snapshot);
+                final int length = buffer.position() - position - 2;
+                buffer.putShort(position, (short) length);
+                checksum.reset();
+                checksum.update(buffer.array(), position + 2, length);
+                buffer.putInt((int) checksum.getValue());
+            }
+            drain(buffer, out);
+            out.force(true);
+            baseSize = out.size();
+        }
+        Files.move(temporary, base, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Crée (ou vide) le journal, et y écrit l'en-tête de la génération donnée.
+     *
+     * @param generation la génération du journal
+     * @return le journal ouvert
+     * @throws IOException si le journal ne peut être ouvert
+     */
+    private FileChannel openLog(long generation) throws IOException {
+        final FileChannel opened = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putLong(generation);
+        header.flip();
+        while (header.hasRemaining()) {
+            opened.write(header);
+        }
+        return opened;
+    }
+
+    /**
+     * Rejoue la base donnée puis les journaux donnés, dans l'ordre, et renvoie l'état des parties en cours. Un journal
+     * dont la génération est déjà couverte par la base (ou par un journal précédent) est ignoré. Chaque fichier est lu
+     * jusqu'à son premier enregistrement incomplet ou corrompu.
+     *
+     * @param base la base (ignorée si absente)
+     * @param logs les journaux à rejouer (les fichiers absents sont ignorés)
+     * @return l'état de chaque partie en cours, et la génération du dernier journal qu'il couvre
+     * @throws IOException si un fichier ne peut être lu, ou n'est pas un journal
+     */
+    private static Replay replay(Path base, Path... logs) throws IOException {
+        final Replay replay = new Replay();
+        final byte[] record = new byte[1 << 16];
+        final CRC32 checksum = new CRC32();
+
+        replay(base, true, replay, record, checksum);
+        for (Path file : logs) {
+            replay(file, false, replay, record, checksum);
+        }
+        return replay;
+    }
+
+    private static void replay(Path file, boolean isBase, Replay replay, byte[] record, CRC32 checksum)
+            throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) < HEADER_SIZE) {
+            return;
+        }
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file));
+             DataInputStream in = new DataInputStream(stream)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Journal des parties invalide : " + file);
+            }
+            final long generation = in.readLong();
+            if (!isBase && generation <= replay.generation) {
+                return;
+            }
+            replay.generation = generation;
+
+            while (true) {
+                final int length;
+                final int expected;
+                try {
+                    length = in.readUnsignedShort();
+                    in.readFully(record, 0, length);
+                    expected = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                checksum.reset();
+                checksum.update(record, 0, length);
+                if ((int) checksum.getValue() != expected) {
+                    break;
+                }
+                apply(replay.states, ByteBuffer.wrap(record, 0, length));
+            }
+        }
+    }
+
+    private static void apply(Map<String, State> states, ByteBuffer record) {
+        final byte type = record.get();
+        final long time = record.getLong();
+        final byte[] bytes = new byte[record.get() & 0xff];
+        record.get(bytes);
+        final String id = new String(bytes, StandardCharsets.US_ASCII);
+
+        switch (type) {
+            case START:
+                final State state = new State();
+                state.snapshot = new byte[GameSnapshot.SIZE];
+                record.get(state.snapshot);
+                state.lastAccess = time;
+                states.put(id, state);
+                break;
+            case MOVE:
+                final State current = states.get(id);
+                if (current != null) {
+                    final int line = record.get();
+                    final int column = record.get();
+                    GameSnapshot.place(ByteBuffer.wrap(current.snapshot), 0, line * Sudotris.COLUMNS + column,
+                            record.get());
+                    current.lastAccess = time;
+                }
+                break;
+            case END:
+                states.remove(id);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Résultat du rejeu : état de chaque partie en cours, et génération du dernier journal rejoué (0 sans base ni
+     * journal).
+     */
+    private static final class Replay {
+        private final Map<String, State> states = new LinkedHashMap<>();
+        private long generation;
+    }
+
+    /**
+     * État d'une partie pendant le rejeu du journal.
+     */
+    private static final class State {
+        private byte[] snapshot;
+        private long lastAccess;
+    }
+}
@@ -0,0 +1,353 @@
+package guillaume.sudotris.server;
+
+import guillaume.sudotris.fileio.GameSnapshot;
+import guillaume.sudotris.metier.Sudotris;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stockage hors du tas des parties inactives : chaque partie occupe un emplacement de taille fixe
+ * (<code>SLOT_SIZE</code> octets) dans des blocs ByteBuffer directs, alloués par <code>SLAB_SLOTS</code> emplacements.
+ * <br>
+ * L'identifiant d'une partie désigne son emplacement (8 chiffres hexadécimaux) suivi d'un jeton aléatoire
+ * (16 chiffres hexadécimaux) vérifié à chaque accès : aucune table d'index n'est conservée sur le tas. <br>
+ * Un emplacement reste réservé à sa partie tant qu'elle existe ; lorsque la partie est active (chargée sur le tas),
+ * son emplacement est seulement marqué, et son contenu n'est plus à jour. <br>
+ * Format d'un emplacement : jeton (8 octets), dernier accès (8 octets), indicateurs (1 octet : occupé, active),
+ * puis la sauvegarde de la partie (c.f. GameSnapshot). <br>
+ * Les instances sont thread-safe.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SessionRegistry
+ * @since 1.8
+ */
+public class OffHeapSessionStore {
+    /**
+     * Taille d'un emplacement, en octets.
+     */
+    public static final int SLOT_SIZE = 17 + GameSnapshot.SIZE;
+    /**
+     * Nombre d'emplacements d'un bloc.
+     */
+    public static final int SLAB_SLOTS = 1 << 16;
+    /**
+     * Nombre maximal d'emplacements : 16 blocs, soit un million de parties.
+     */
+    public static final int MAX_SLOTS = 16 * SLAB_SLOTS;
+
+    private static final int TOKEN = 0;
+    private static final int LAST_ACCESS = 8;
+    private static final int FLAGS = 16;
+    private static final int SNAPSHOT = 17;
+
+    private static final int USED = 1;
+    private static final int ACTIVE = 1 << 1;
+
+    private final SecureRandom random = new SecureRandom();
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int[] free = new int[0];
+    private int nbFree;
+    private int nbSlots;
+    private int nbUsed;
+    private int nbActive;
+
+    /**
+     * <code>vrai</code> si des emplacements de la liste des emplacements libres ont été occupés par
+     * <code>restore</code> : la liste est alors reconstruite à la prochaine allocation.
+     */
+    private boolean staleFree;
+
+    /**
+     * Réserve un emplacement pour une nouvelle partie, active.
+     *
+     * @return l'identifiant de la partie
+     * @throws IllegalStateException si les <code>MAX_SLOTS</code> emplacements sont occupés
+     */
+    public synchronized String allocate() {
+        if (staleFree) {
+            rebuildFree();
+        }
+        if (nbFree == 0) {
+            if (nbSlots >= MAX_SLOTS) {
+                throw new IllegalStateException("Nombre maximal de parties atteint");
+            }
+            grow();
+        }
+        final int slot = free[--nbFree];
+        final long token = random.nextLong();
+
+        final ByteBuffer slab = slab(slot);
+        final int offset = offset(slot);
+        slab.putLong(offset + TOKEN, token);
+        slab.putLong(offset + LAST_ACCESS, System.currentTimeMillis());
+        slab.put(offset + FLAGS, (byte) (USED | ACTIVE));
+        nbUsed++;
+        nbActive++;
+        return id(slot, token);
+    }
+
+    /**
+     * Met en sommeil la partie donnée : sa sauvegarde est copiée dans son emplacement.
+     *
+     * @param id         l'identifiant de la partie
+     * @param snapshot   le tampon de la sauvegarde de la partie (c.f. GameSnapshot)
+     * @param from       la position du premier octet de la sauvegarde
+     * @param lastAccess la date du dernier accès à la partie, en millisecondes
+     * @return <code>vrai</code> si la partie a été écrite; <br>
+     * <code>faux</code> si l'identifiant ne désigne pas une partie existante
+     */
+    public synchronized boolean write(String id, ByteBuffer snapshot, int from, long lastAccess) {
+        final int slot = find(id);
+        if (slot < 0) {
+            return false;
+        }
+
+        final ByteBuffer slab = slab(slot);
+        final int offset = offset(slot);
+        for (int i = 0; i < GameSnapshot.SIZE; i++) {
+            slab.put(offset + SNAPSHOT + i, snapshot.get(from + i));
+        }
+        if ((slab.get(offset + FLAGS) & ACTIVE) != 0) {
+            nbActive--;
+        }
+        slab.put(offset + FLAGS, (byte) USED);
+        slab.putLong(offset + LAST_ACCESS, lastAccess);
+        return true;
+    }
+
+    /**
+     * Restaure en sommeil une partie d'identifiant connu (par exemple reconstruite depuis le journal des parties), dans
+     * l'emplacement que désigne son identifiant. La sauvegarde est copiée telle quelle.
+     *
+     * @param id         l'identifiant de la partie
+     * @param snapshot   le tampon de la sauvegarde de la partie (c.f. GameSnapshot)
+     * @param from       la position du premier octet de la sauvegarde
+     * @param lastAccess la date du dernier accès à la partie, en millisecondes
+     * @return <code>vrai</code> si la partie a été restaurée; <br>
+     * <code>faux</code> si l'identifiant est invalide (emplacement au-delà de <code>MAX_SLOTS</code> compris), ou son
+     * emplacement déjà occupé
+     * @see MoveJournal#recover(MoveJournal.Visitor)
+     */
+    public synchronized boolean restore(String id, ByteBuffer snapshot, int from, long lastAccess) {
+        if (id.length() != 24) {
+            return false;
+        }
+        final int slot;
+        final long token;
+        try {
+            slot = Integer.parseUnsignedInt(id.substring(0, 8), 16);
+            token = Long.parseUnsignedLong(id.substring(8), 16);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        // Emplacement lu dans le journal : borné, pour ne pas allouer de blocs à la demande d'un identifiant forgé
+        if (slot < 0 || slot >= MAX_SLOTS) {
+            return false;
+        }
+        while (slot >= nbSlots) {
+            grow();
+        }
+
+        final ByteBuffer slab = slab(slot);
+        final int offset = offset(slot);
+        if ((slab.get(offset + FLAGS) & USED) != 0) {
+            return false;
+        }
+        for (int i = 0; i < GameSnapshot.SIZE; i++) {
+            slab.put(offset + SNAPSHOT + i, snapshot.get(from + i));
+        }
+        slab.putLong(offset + TOKEN, token);
+        slab.putLong(offset + LAST_ACCESS, lastAccess);
+        slab.put(offset + FLAGS, (byte) USED);
+        nbUsed++;
+        staleFree = true;
+        return true;
+    }
+
+    /**
+     * Réveille la partie donnée : son état est restauré dans le Sudotris donné, et son emplacement marqué actif.
+     *
+     * @param id       l'identifiant de la partie
+     * @param sudotris le Sudotris à restaurer
+     * @return <code>vrai</code> si la partie a été restaurée; <br>
+     * <code>faux</code> si l'identifiant ne désigne pas une partie en sommeil
+     */
+    public boolean read(String id, Sudotris sudotris) {
+        final byte[] snapshot = new byte[GameSnapshot.SIZE];
+
+        synchronized (this) {
+            final int slot = find(id);
+            if (slot < 0) {
+                return false;
+            }
+
+            final ByteBuffer slab = slab(slot);
+            final int offset = offset(slot);
+            final int flags = slab.get(offset + FLAGS);
+            if ((flags & ACTIVE) != 0) {
+                return false;
+            }
+            for (int i = 0; i < GameSnapshot.SIZE; i++) {
+                snapshot[i] = slab.get(offset + SNAPSHOT + i);
+            }
+            slab.put(offset + FLAGS, (byte) (flags | ACTIVE));
+            nbActive++;
+        }
+
+        // Restauration (et résolution éventuelle) hors du verrou du stockage
+        GameSnapshot.read(ByteBuffer.wrap(snapshot), 0, sudotris);
+        return true;
+    }
+
+    /**
+     * Indique si la partie donnée est active : chargée sur le tas, ou en cours de chargement.
+     *
+     * @param id l'identifiant de la partie
+     * @return <code>vrai</code> si la partie existe et est active; <br>
+     * <code>faux</code> sinon
+     */
+    public synchronized boolean isActive(String id) {
+        final int slot = find(id);
+        return slot >= 0 && (slab(slot).get(offset(slot) + FLAGS) & ACTIVE) != 0;
+    }
+
+    /**
+     * Libère l'emplacement de la partie donnée.
+     *
+     * @param id l'identifiant de la partie
+     * @return <code>vrai</code> si la partie existait; <br>
+     * <code>faux</code> sinon
+     */
+    public synchronized boolean free(String id) {
+        final int slot = find(id);
+        if (slot < 0) {
+            return false;
+        }
+        release(slot);
+        return true;
+    }
+
+    /**
+     * Libère les emplacements des parties en sommeil dont le dernier accès est antérieur à la date donnée.
+     *
+     * @param limit la date limite, en millisecondes
+     * @return les identifiants des parties libérées
+     */
+    public synchronized List<String> evictIdle(long limit) {
+        final List<String> evicted = new ArrayList<>();
+        for (int slot = 0; slot < nbSlots; slot++) {
+            final ByteBuffer slab = slab(slot);
+            final int offset = offset(slot);
+            final int flags = slab.get(offset + FLAGS);
+            if ((flags & USED) != 0 && (flags & ACTIVE) == 0 && slab.getLong(offset + LAST_ACCESS) < limit) {
+                evicted.add(id(slot, slab.getLong(offset + TOKEN)));
+                release(slot);
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Renvoie le nombre de parties, actives ou en sommeil.
+     *
+     * @return le nombre de parties
+     */
+    public synchronized int size() {
+        return nbUsed;
+    }
+
+    /**
+     * Renvoie le nombre de parties en sommeil.
+     *
+     * @return le nombre de parties en sommeil
+     */
+    public synchronized int dormantCount() {
+        return nbUsed - nbActive;
+    }
+
+    /**
+     * Renvoie l'emplacement désigné par l'identifiant donné, après vérification du jeton.
+     *
+     * @param id l'identifiant de la partie
+     * @return l'emplacement, ou -1 si l'identifiant ne désigne pas une partie existante
+     */
+    private int find(String id) {
+        if (id.length() != 24) {
+            return -1;
+        }
+        final int slot;
+        final long token;
+        try {
+            slot = Integer.parseUnsignedInt(id.substring(0, 8), 16);
+            token = Long.parseUnsignedLong(id.substring(8), 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (slot < 0 || slot >= nbSlots) {
+            return -1;
+        }
+
+        final ByteBuffer slab = slab(slot);
+        final int offset = offset(slot);
+        if ((slab.get(offset + FLAGS) & USED) == 0 || slab.getLong(offset + TOKEN) != token) {
+            return -1;
+        }
+        return slot;
+    }
+
+    private static String id(int slot, long token) {
+        return String.format("%08x%016x", slot, token);
+    }
+
+    private void release(int slot) {
+        final ByteBuffer slab = slab(slot);
+        final int offset = offset(slot);
+        if ((slab.get(offset + FLAGS) & ACTIVE) != 0) {
+            nbActive--;
+        }
+        slab.put(offset + FLAGS, (byte) 0);
+        slab.putLong(offset + TOKEN, 0);
+        nbUsed--;
+        if (!staleFree) {
+            free[nbFree++] = slot;
+        }
+    }
+
+    /**
+     * Reconstruit la liste des emplacements libres, en écartant ceux occupés depuis par <code>restore</code>.
+     */
+    private void rebuildFree() {
+        nbFree = 0;
+        for (int slot = nbSlots - 1; slot >= 0; slot--) {
+            if ((slab(slot).get(offset(slot) + FLAGS) & USED) == 0) {
+                free[nbFree++] = slot;
+            }
+        }
+        staleFree = false;
+    }
+
+    /**
+     * Alloue un nouveau bloc d'emplacements, et ajoute ses emplacements à la liste des emplacements libres.
+     */
+    private void grow() {
+        slabs.add(ByteBuffer.allocateDirect(SLAB_SLOTS * SLOT_SIZE));
+        free = Arrays.copyOf(free, nbSlots + SLAB_SLOTS);
+        for (int slot = nbSlots + SLAB_SLOTS - 1; slot >= nbSlots; slot--) {
+            free[nbFree++] = slot;
+        }
+        nbSlots += SLAB_SLOTS;
+    }
+
+    private ByteBuffer slab(int slot) {
+        return slabs.get(slot / SLAB_SLOTS);
+    }
+
+    private static int offset(int slot) {
+        return (slot % SLAB_SLOTS) * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,64 @@
+package guillaume.sudotris.server;
+
+import guillaume.sudotris.metier.Sudotris;
+
+/**
+ * Partie servie par le serveur : un Sudotris, son identifiant, et la date de son dernier accès. <br>
+ * Les commandes d'une même partie sont sérialisées en synchronisant sur la session.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SessionRegistry
+ * @since 1.8
+ */
+public final class Session {
+    private final String id;
+    private final Sudotris sudotris;
+    private volatile long lastAccess;
+
+    /**
+     * Construit une session.
+     *
+     * @param id       l'identifiant de la session
+     * @param sudotris la partie
+     */
+    Session(String id, Sudotris sudotris) {
+        this.id = id;
+        this.sudotris = sudotris;
+        touch();
+    }
+
+    /**
+     * Renvoie l'identifiant de la session.
+     *
+     * @return l'identifiant de la session
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Renvoie la partie de la session.
+     *
+     * @return la partie
+     */
+    public Sudotris getSudotris() {
+        return sudotris;
+    }
+
+    /**
+     * Renvoie la date du dernier accès à la session.
+     *
+     * @return la date du dernier accès, en millisecondes (c.f. System#currentTimeMillis())
+     */
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * Enregistre un accès à la session.
+     */
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,274 @@
+package guillaume.sudotris.server;
+
+import guillaume.sudotris.fileio.GameSnapshot;
+import guillaume.sudotris.metier.Sudotris;
+import guillaume.sudotris.metier.element.Element;
+import guillaume.sudotris.resources.PooledSolver;
+import guillaume.sudotris.resources.Solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registre des parties en cours, indexées par identifiant. <br>
+ * Seules les parties actives sont conservées sur le tas : une partie sans accès depuis le délai de mise en sommeil est
+ * écrite hors du tas (c.f. OffHeapSessionStore), et n'est rechargée qu'à son prochain accès. Les parties inactives
+ * depuis plus longtemps que le délai d'inactivité sont évincées. Ces balayages sont faits par <code>evictIdle()</code>.
+ * <br>
+ * Toutes les parties partagent un même réservoir de moteurs de résolution. <br>
+ * Avec un journal des parties (c.f. MoveJournal), chaque début de partie, coup accepté et fin de partie y est
+ * enregistré, et <code>recover()</code> restaure en sommeil les parties en cours lors de l'arrêt précédent.
+ * Les instances sont thread-safe.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see Session
+ * @see MoveJournal
+ * @since 1.8
+ */
+public class SessionRegistry {
+    /**
+     * Délai par défaut au-delà duquel une partie sans accès est mise en sommeil hors du tas : 1 minute.
+     */
+    public static final long DEFAULT_DORMANCY = TimeUnit.MINUTES.toMillis(1);
+
+    private final Map<String, Session> active = new ConcurrentHashMap<>();
+    private final OffHeapSessionStore store = new OffHeapSessionStore();
+    private final Solver solver = new PooledSolver();
+    private final long idleTimeoutMillis;
+    private final long dormancyMillis;
+    private final MoveJournal journal;
+
+    /**
+     * Construit un registre de parties, avec le délai de mise en sommeil par défaut (au plus le délai d'inactivité).
+     *
+     * @param idleTimeoutMillis le délai d'inactivité au-delà duquel une partie est évincée, en millisecondes
+     */
+    public SessionRegistry(long idleTimeoutMillis) {
+        this(idleTimeoutMillis, Math.min(DEFAULT_DORMANCY, idleTimeoutMillis));
+    }
+
+    /**
+     * Construit un registre de parties.
+     *
+     * @param idleTimeoutMillis le délai d'inactivité au-delà duquel une partie est évincée, en millisecondes
+     * @param dormancyMillis    le délai au-delà duquel une partie sans accès est mise en sommeil hors du tas,
+     *                          en millisecondes
+     */
+    public SessionRegistry(long idleTimeoutMillis, long dormancyMillis) {
+        this(idleTimeoutMillis, dormancyMillis, null);
+    }
+
+    /**
+     * Construit un registre de parties journalisées.
+     *
+     * @param idleTimeoutMillis le délai d'inactivité au-delà duquel une partie est évincée, en millisecondes
+     * @param dormancyMillis    le délai au-delà duquel une partie sans accès est mise en sommeil hors du tas,
+     *                          en millisecondes
+     * @param journal           le journal des parties, ou <code>null</code> pour ne pas journaliser
+     * @see SessionRegistry#recover()
+     */
+    public SessionRegistry(long idleTimeoutMillis, long dormancyMillis, MoveJournal journal) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.dormancyMillis = dormancyMillis;
+        this.journal = journal;
+    }
+
+    /**
+     * Restaure en sommeil les parties en cours du journal : elles ne sont rechargées sur le tas qu'à leur prochain
+     * accès. À appeler avant de servir des parties.
+     *
+     * @return le nombre de parties restaurées
+     * @throws IOException si le journal ne peut être lu
+     */
+    public int recover() throws IOException {
+        if (journal == null) {
+            return 0;
+        }
+        final int[] restored = new int[1];
+        journal.recover((id, snapshot, lastAccess) -> {
+            if (store.restore(id, snapshot, 0, lastAccess)) {
+                restored[0]++;
+            }
+        });
+        return restored[0];
+    }
+
+    /**
+     * Journalise le début (ou la réinitialisation) de la partie donnée, une fois initialisée.
+     *
+     * @param session la session de la partie
+     */
+    public void recordStart(Session session) {
+        if (journal != null) {
+            journal.start(session.getId(), session.getSudotris());
+        }
+    }
+
+    /**
+     * Vérifie que le journal des parties, s'il y en a un, accepte encore des enregistrements : à appeler avant de
+     * modifier une partie, afin de ne pas refuser un coup déjà appliqué.
+     *
+     * @throws IllegalStateException si le journal est fermé, ou ne peut plus être écrit
+     */
+    public void checkJournal() {
+        if (journal != null) {
+            journal.checkAvailable();
+        }
+    }
+
+    /**
+     * Journalise un coup accepté de la partie donnée.
+     *
+     * @param session la session de la partie
+     * @param element l'élément placé
+     */
+    public void recordMove(Session session, Element element) {
+        if (journal != null) {
+            journal.move(session.getId(), element.getLine(), element.getColumn(), element.getNumber());
+        }
+    }
+
+    /**
+     * Crée une nouvelle partie, non initialisée.
+     *
+     * @return la session de la partie
+     */
+    public Session create() {
+        final Session session = new Session(store.allocate(), new Sudotris(solver));
+        active.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Renvoie la partie d'identifiant donné, en la réveillant si elle est en sommeil, et enregistre l'accès.
+     *
+     * @param id l'identifiant de la partie
+     * @return la session de la partie, ou <code>null</code> si elle n'existe pas (ou a été évincée)
+     */
+    public Session get(String id) {
+        while (true) {
+            final Session session = active.computeIfPresent(id, (key, current) -> {
+                current.touch();
+                return current;
+            });
+            if (session != null) {
+                return session;
+            }
+
+            // Réveil hors de la table, la restauration pouvant résoudre la grille : le drapeau actif du stockage
+            // garantit qu'un seul thread réveille la partie
+            final Session awoken = new Session(id, new Sudotris(solver));
+            final boolean read;
+            try {
+                read = store.read(id, awoken.getSudotris());
+            } catch (RuntimeException e) {
+                remove(id);
+                throw e;
+            }
+            if (read) {
+                final Session previous = active.putIfAbsent(id, awoken);
+                return previous != null ? previous : awoken;
+            }
+            if (!store.isActive(id)) {
+                return null;
+            }
+            // Partie en cours de réveil, de création ou de suppression par un autre thread
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Supprime la partie d'identifiant donné.
+     *
+     * @param id l'identifiant de la partie
+     * @return <code>vrai</code> si la partie existait; <br>
+     * <code>faux</code> sinon
+     */
+    public boolean remove(String id) {
+        active.remove(id);
+        final boolean removed = store.free(id);
+        if (removed && journal != null) {
+            journal.end(id);
+        }
+        return removed;
+    }
+
+    /**
+     * Met en sommeil les parties actives sans accès depuis le délai de mise en sommeil, et évince les parties
+     * inactives depuis plus longtemps que le délai d'inactivité, en journalisant leur fin.
+     *
+     * @return le nombre de parties évincées
+     */
+    public int evictIdle() {
+        final long now = System.currentTimeMillis();
+        final long dormancyLimit = now - dormancyMillis;
+        final long evictionLimit = now - idleTimeoutMillis;
+
+        final ByteBuffer snapshot = ByteBuffer.allocate(GameSnapshot.SIZE);
+        for (Map.Entry<String, Session> entry : active.entrySet()) {
+            final Session session = entry.getValue();
+            final long lastAccess = session.getLastAccess();
+            if (lastAccess >= dormancyLimit) {
+                continue;
+            }
+
+            // Sauvegarde sous le verrou de la partie, mais hors de la table : CLOSE prend ces verrous dans l'ordre
+            // inverse. La partie n'est détachée que si elle n'a pas été accédée depuis.
+            synchronized (session) {
+                GameSnapshot.write(session.getSudotris(), snapshot, 0);
+            }
+            active.computeIfPresent(entry.getKey(), (key, current) -> {
+                if (current != session || current.getLastAccess() != lastAccess) {
+                    return current;
+                }
+                store.write(key, snapshot, 0, lastAccess);
+                return null;
+            });
+        }
+        final List<String> evicted = store.evictIdle(evictionLimit);
+        if (journal != null) {
+            for (String id : evicted) {
+                try {
+                    journal.end(id);
+                } catch (IllegalStateException e) {
+                    // Journal indisponible : les parties évincées seront reconstruites à la reprise, mais le balayage
+                    // doit continuer
+                    break;
+                }
+            }
+        }
+        return evicted.size();
+    }
+
+    /**
+     * Renvoie la période de balayage adaptée aux délais du registre.
+     *
+     * @return la période entre deux appels à <code>evictIdle()</code>, en millisecondes
+     */
+    public long getSweepPeriodMillis() {
+        return Math.max(Math.min(dormancyMillis, idleTimeoutMillis) / 2, 1);
+    }
+
+    /**
+     * Renvoie le nombre de parties, actives ou en sommeil.
+     *
+     * @return le nombre de parties
+     */
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Renvoie le nombre de parties actives, conservées sur le tas.
+     *
+     * @return le nombre de parties actives
+     */
+    public int activeCount() {
+        return active.size();
+    }
+}
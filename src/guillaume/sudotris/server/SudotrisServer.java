@@ -0,0 +1,168 @@
+package guillaume.sudotris.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serveur de parties de Sudotris : un protocole texte, ligne par ligne, sur TCP (c.f. ConnectionHandler). <br>
+ * Chaque connexion est traitée par son propre thread : un thread virtuel lorsque la JVM en dispose (Java 21 et plus),
+ * un thread démon d'un pool extensible sinon. Les parties sont conservées dans un registre concurrent, mises en sommeil
+ * hors du tas entre deux coups, et évincées après un délai d'inactivité. Avec un dossier de journal, les parties sont
+ * journalisées, et celles en cours lors de l'arrêt précédent sont reprises au démarrage (c.f. MoveJournal).
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SessionRegistry
+ * @see ConnectionHandler
+ * @since 1.8
+ */
+public class SudotrisServer implements Closeable {
+    /**
+     * Port d'écoute par défaut.
+     */
+    public static final int DEFAULT_PORT = 4242;
+    /**
+     * Délai d'inactivité par défaut au-delà duquel une partie est évincée : 30 minutes.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+
+    private final ServerSocket serverSocket;
+    private final SessionRegistry sessions;
+    private final MoveJournal journal;
+    private final ExecutorService connections;
+    private final ScheduledExecutorService evictor;
+    private final Thread acceptor;
+
+    /**
+     * Démarre un serveur sur le port donné (interface locale uniquement).
+     *
+     * @param port              le port d'écoute, ou 0 pour un port libre quelconque
+     * @param idleTimeoutMillis le délai d'inactivité au-delà duquel une partie est évincée, en millisecondes
+     * @throws IOException si le port ne peut être ouvert
+     */
+    public SudotrisServer(int port, long idleTimeoutMillis) throws IOException {
+        this(port, idleTimeoutMillis, null);
+    }
+
+    /**
+     * Démarre un serveur sur le port donné (interface locale uniquement), en journalisant les parties dans le dossier
+     * donné. Les parties en cours du journal sont restaurées avant d'accepter la première connexion.
+     *
+     * @param port              le port d'écoute, ou 0 pour un port libre quelconque
+     * @param idleTimeoutMillis le délai d'inactivité au-delà duquel une partie est évincée, en millisecondes
+     * @param journalDirectory  le dossier du journal des parties, ou <code>null</code> pour ne pas journaliser
+     * @throws IOException si le journal ne peut être lu, ou le port ouvert
+     */
+    public SudotrisServer(int port, long idleTimeoutMillis, Path journalDirectory) throws IOException {
+        this.journal = journalDirectory == null ? null : new MoveJournal(journalDirectory, idleTimeoutMillis);
+        this.sessions = new SessionRegistry(idleTimeoutMillis,
+                Math.min(SessionRegistry.DEFAULT_DORMANCY, idleTimeoutMillis), journal);
+        try {
+            sessions.recover();
+            this.serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            if (journal != null) {
+                journal.close();
+            }
+            throw e;
+        }
+        this.connections = newConnectionExecutor();
+        this.evictor = Executors.newSingleThreadScheduledExecutor(daemonThreads("sudotris-evictor-"));
+
+        final long period = sessions.getSweepPeriodMillis();
+        evictor.scheduleAtFixedRate(sessions::evictIdle, period, period, TimeUnit.MILLISECONDS);
+
+        acceptor = daemonThreads("sudotris-acceptor-").newThread(this::accept);
+        acceptor.start();
+    }
+
+    /**
+     * Renvoie le port d'écoute du serveur.
+     *
+     * @return le port d'écoute
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Renvoie le registre des parties du serveur.
+     *
+     * @return le registre des parties
+     */
+    public SessionRegistry getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Attend l'arrêt du serveur.
+     *
+     * @throws InterruptedException si le thread courant est interrompu pendant l'attente
+     */
+    public void awaitTermination() throws InterruptedException {
+        acceptor.join();
+    }
+
+    /**
+     * Arrête le serveur : plus aucune connexion n'est acceptée, les connexions en cours sont interrompues, et les
+     * derniers coups journalisés écrits sur disque.
+     *
+     * @throws IOException si la fermeture du port ou du journal échoue
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        evictor.shutdownNow();
+        connections.shutdownNow();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.execute(new ConnectionHandler(socket, sessions));
+            } catch (IOException e) {
+                // Port fermé : arrêt du serveur
+            }
+        }
+    }
+
+    /**
+     * Crée l'exécuteur des connexions : un thread virtuel par connexion si la JVM le permet (recherché par
+     * réflexion, le projet ciblant Java 8), un pool extensible de threads démons sinon.
+     *
+     * @return l'exécuteur des connexions
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            final Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonThreads("sudotris-connection-"));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
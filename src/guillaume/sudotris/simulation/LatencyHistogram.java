@@ -0,0 +1,94 @@
+package guillaume.sudotris.simulation;
+
+/**
+ * Histogramme de latences, en nanosecondes, à précision relative bornée : chaque puissance de 2 est découpée en
+ * <code>SUB_BUCKETS</code> intervalles égaux, soit une erreur d'au plus 1/32 sur les percentiles. <br>
+ * Un histogramme par thread, sans synchronisation, fusionnés en fin de mesure.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @since 1.8
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * Valeurs inférieures à <code>SUB_BUCKETS</code>, puis <code>SUB_BUCKETS</code> intervalles par puissance de 2.
+     */
+    private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB_BUCKETS];
+    private long total;
+    private long max;
+
+    /**
+     * Enregistre une latence.
+     *
+     * @param nanos la latence, en nanosecondes
+     */
+    void record(long nanos) {
+        final long value = Math.max(nanos, 0);
+        counts[index(value)]++;
+        total++;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Ajoute à cet histogramme les latences de l'histogramme donné.
+     *
+     * @param other l'histogramme à fusionner
+     */
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    /**
+     * Renvoie le percentile donné : borne haute de l'intervalle qui le contient, au plus la latence maximale.
+     *
+     * @param percentile le percentile, entre 0 et 100
+     * @return la latence en nanosecondes, ou 0 si aucune latence n'a été enregistrée
+     */
+    long getPercentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        return ((long) (SUB_BUCKETS + index % SUB_BUCKETS + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,252 @@
+package guillaume.sudotris.simulation;
+
+import guillaume.sudotris.metier.Difficulte;
+import guillaume.sudotris.metier.Sudotris;
+import guillaume.sudotris.metier.element.Element;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Générateur de charge de la couche métier, sans IHM : des joueurs simulés enchaînent des parties de Sudotris
+ * (<code>init</code>, <code>getNumberToPlace</code>, <code>placeElement</code>) pendant une durée fixe, une partie
+ * par thread à la fois. <br>
+ * La latence d'un coup couvre le tirage du nombre à placer et la vérification de son placement, mais pas le choix de
+ * la case par la stratégie. Les parties en cours à l'échéance sont abandonnées : seules les parties terminées sont
+ * comptées, tous les coups joués le sont.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see PlayerStrategy
+ * @since 1.8
+ */
+public class LoadGenerator {
+    private final PlayerStrategy strategy;
+    private final Difficulte difficulte;
+    private final int nbThreads;
+
+    /**
+     * Construit un générateur de charge.
+     *
+     * @param strategy   la stratégie des joueurs simulés
+     * @param difficulte la difficulté des parties jouées
+     * @param nbThreads  le nombre de joueurs simultanés, un par thread
+     */
+    public LoadGenerator(PlayerStrategy strategy, Difficulte difficulte, int nbThreads) {
+        if (nbThreads < 1) {
+            throw new IllegalArgumentException("Au moins un joueur est nécessaire : " + nbThreads);
+        }
+        this.strategy = strategy;
+        this.difficulte = difficulte;
+        this.nbThreads = nbThreads;
+    }
+
+    /**
+     * Fait jouer les joueurs simulés pendant la durée donnée, et renvoie le bilan de la simulation.
+     *
+     * @param duration la durée de la simulation
+     * @param unit     l'unité de la durée
+     * @return le bilan de la simulation
+     * @throws InterruptedException si le thread est interrompu en attendant la fin de la simulation
+     */
+    public Report run(long duration, TimeUnit unit) throws InterruptedException {
+        final ExecutorService players = Executors.newFixedThreadPool(nbThreads, daemonThreads("sudotris-player-"));
+        final long start = System.nanoTime();
+        final long deadline = start + unit.toNanos(duration);
+        try {
+            final List<Future<Player>> futures = new ArrayList<>(nbThreads);
+            for (int i = 0; i < nbThreads; i++) {
+                final Player player = new Player(deadline);
+                futures.add(players.submit(() -> {
+                    player.play();
+                    return player;
+                }));
+            }
+
+            final Report report = new Report();
+            for (Future<Player> future : futures) {
+                report.add(future.get());
+            }
+            report.nanos = System.nanoTime() - start;
+            return report;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Un joueur simulé a échoué", e.getCause());
+        } finally {
+            players.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Joueur simulé : enchaîne les parties sur une même instance de Sudotris jusqu'à l'échéance.
+     */
+    private final class Player {
+        private final long deadline;
+        private final Sudotris sudotris = new Sudotris();
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long nbGames;
+        private long nbMoves;
+        private long nbRejected;
+
+        Player(long deadline) {
+            this.deadline = deadline;
+        }
+
+        void play() {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                sudotris.init(difficulte);
+                final int side = sudotris.getSide();
+                final byte[] cells = sudotris.getCells();
+                byte[] solution = strategy.needsSolution() ? sudotris.getSolution() : null;
+
+                while (!sudotris.isFinished()) {
+                    if (System.nanoTime() >= deadline) {
+                        return;
+                    }
+                    final long drawStart = System.nanoTime();
+                    final int number = sudotris.getNumberToPlace();
+                    final long drawEnd = System.nanoTime();
+
+                    final int position = strategy.choosePosition(cells, solution, number, random);
+                    final Element element = Element.of((byte) (position / side), (byte) (position % side), number);
+
+                    final long placeStart = System.nanoTime();
+                    final boolean accepted = sudotris.placeElement(element);
+                    latencies.record(drawEnd - drawStart + System.nanoTime() - placeStart);
+                    nbMoves++;
+
+                    if (!accepted) {
+                        nbRejected++;
+                        continue;
+                    }
+                    cells[position] = (byte) number;
+                    // Coup accepté hors de la solution (grille à solutions multiples) : la référence a changé
+                    if (solution != null && solution[position] != number) {
+                        solution = sudotris.getSolution();
+                    }
+                }
+                nbGames++;
+            }
+        }
+    }
+
+    /**
+     * Bilan d'une simulation.
+     */
+    public static final class Report {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long nbGames;
+        private long nbMoves;
+        private long nbRejected;
+        private long nanos;
+
+        Report() {
+        }
+
+        private void add(Player player) {
+            latencies.add(player.latencies);
+            nbGames += player.nbGames;
+            nbMoves += player.nbMoves;
+            nbRejected += player.nbRejected;
+        }
+
+        /**
+         * Renvoie le nombre de parties terminées.
+         *
+         * @return le nombre de parties terminées
+         */
+        public long getNbGames() {
+            return nbGames;
+        }
+
+        /**
+         * Renvoie le nombre de coups joués, acceptés ou refusés.
+         *
+         * @return le nombre de coups joués
+         */
+        public long getNbMoves() {
+            return nbMoves;
+        }
+
+        /**
+         * Renvoie le nombre de coups refusés.
+         *
+         * @return le nombre de coups refusés
+         */
+        public long getNbRejected() {
+            return nbRejected;
+        }
+
+        /**
+         * Renvoie la durée effective de la simulation.
+         *
+         * @return la durée en nanosecondes
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Renvoie le débit de parties de la simulation.
+         *
+         * @return le nombre de parties terminées par seconde
+         */
+        public double getGamesPerSecond() {
+            return nanos == 0 ? 0 : nbGames * 1e9 / nanos;
+        }
+
+        /**
+         * Renvoie le débit de coups de la simulation.
+         *
+         * @return le nombre de coups joués par seconde
+         */
+        public double getMovesPerSecond() {
+            return nanos == 0 ? 0 : nbMoves * 1e9 / nanos;
+        }
+
+        /**
+         * Renvoie le percentile donné de la latence d'un coup (à 1/32 près).
+         *
+         * @param percentile le percentile, entre 0 et 100
+         * @return la latence en nanosecondes
+         */
+        public long getLatencyPercentile(double percentile) {
+            return latencies.getPercentile(percentile);
+        }
+
+        /**
+         * Renvoie la latence maximale d'un coup.
+         *
+         * @return la latence en nanosecondes
+         */
+        public long getMaxLatency() {
+            return latencies.getMax();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d parties, %d coups (%d refusés) en %.3f s : %.1f parties/s, %.0f coups/s%n"
+                            + "latence d'un coup (µs) : p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f",
+                    nbGames, nbMoves, nbRejected, nanos / 1e9, getGamesPerSecond(), getMovesPerSecond(),
+                    getLatencyPercentile(50) / 1e3, getLatencyPercentile(90) / 1e3, getLatencyPercentile(99) / 1e3,
+                    getLatencyPercentile(99.9) / 1e3, getMaxLatency() / 1e3);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package guillaume.sudotris.simulation;
+
+import java.util.Random;
+
+/**
+ * Stratégie d'un joueur simulé : choix de la case où placer le nombre imposé par la partie. <br>
+ * Le joueur ne voit que sa copie de la grille de jeu, tenue à jour coup après coup, et, si la stratégie en a besoin,
+ * la solution de référence de la partie.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see LoadGenerator
+ * @since 1.8
+ */
+public enum PlayerStrategy {
+    /**
+     * Joue une case vide au hasard, sans regarder la solution : la plupart des coups sont refusés.
+     */
+    RANDOM(false) {
+        @Override
+        int choosePosition(byte[] cells, byte[] solution, int number, Random random) {
+            return randomEmpty(cells, solution, number, false, random);
+        }
+    },
+
+    /**
+     * Joue toujours une case de la solution : chaque coup est accepté.
+     */
+    GREEDY_CORRECT(true) {
+        @Override
+        int choosePosition(byte[] cells, byte[] solution, int number, Random random) {
+            return correct(cells, solution, number, random);
+        }
+    },
+
+    /**
+     * Joue une case de la solution, mais se trompe une fois sur <code>ERROR_RATE</code> : un coup sur quatre environ
+     * est refusé.
+     */
+    ERROR_PRONE(true) {
+        @Override
+        int choosePosition(byte[] cells, byte[] solution, int number, Random random) {
+            if (random.nextDouble() < ERROR_RATE) {
+                final int wrong = randomEmpty(cells, solution, number, true, random);
+                if (wrong >= 0) {
+                    return wrong;
+                }
+            }
+            return correct(cells, solution, number, random);
+        }
+    };
+
+    /**
+     * Proportion des coups volontairement faux de la stratégie ERROR_PRONE.
+     */
+    public static final double ERROR_RATE = 0.25;
+
+    private final boolean needsSolution;
+
+    PlayerStrategy(boolean needsSolution) {
+        this.needsSolution = needsSolution;
+    }
+
+    /**
+     * Indique si la stratégie consulte la solution de référence de la partie.
+     *
+     * @return <code>vrai</code> si la solution doit être fournie à <code>choosePosition</code>; <br>
+     * <code>faux</code> sinon
+     */
+    public boolean needsSolution() {
+        return needsSolution;
+    }
+
+    /**
+     * Choisit la case où placer le nombre donné.
+     *
+     * @param cells    la grille de jeu vue par le joueur (0 pour une case vide)
+     * @param solution la solution de référence, ou <code>null</code> si la stratégie n'en a pas besoin
+     * @param number   le nombre à placer
+     * @param random   le générateur aléatoire du joueur
+     * @return la position de la case (<code>line * side + column</code>), toujours vide
+     */
+    abstract int choosePosition(byte[] cells, byte[] solution, int number, Random random);
+
+    /**
+     * Renvoie une case vide de la solution attendant le nombre donné, ou à défaut une case vide au hasard.
+     */
+    private static int correct(byte[] cells, byte[] solution, int number, Random random) {
+        for (int position = 0; position < cells.length; position++) {
+            if (cells[position] == 0 && solution[position] == number) {
+                return position;
+            }
+        }
+        return randomEmpty(cells, solution, number, false, random);
+    }
+
+    /**
+     * Tire une case vide au hasard, éventuellement parmi celles où le nombre donné est faux.
+     *
+     * @return la position de la case tirée, ou -1 s'il n'y en a aucune
+     */
+    private static int randomEmpty(byte[] cells, byte[] solution, int number, boolean wrongOnly, Random random) {
+        int count = 0;
+        for (int position = 0; position < cells.length; position++) {
+            if (cells[position] == 0 && (!wrongOnly || solution[position] != number)) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return -1;
+        }
+
+        int rank = random.nextInt(count);
+        for (int position = 0; ; position++) {
+            if (cells[position] == 0 && (!wrongOnly || solution[position] != number) && rank-- == 0) {
+                return position;
+            }
+        }
+    }
+}
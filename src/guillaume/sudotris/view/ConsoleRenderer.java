@@ -0,0 +1,225 @@
+package guillaume.sudotris.view;
+
+import guillaume.sudotris.metier.element.Element;
+
+import java.io.PrintStream;
+
+/**
+ * Rendu en console de la grille de jeu. <br>
+ * Chaque image est construite dans un unique tampon, réutilisé d'une image à l'autre, puis écrite en un seul appel :
+ * le flux de sortie (synchronisé) n'est verrouillé qu'une fois par image. <br>
+ * En mode ANSI, la grille est dessinée en haut de l'écran à la première image, puis seules les cases modifiées depuis
+ * l'image précédente sont redessinées (positionnement du curseur par séquences d'échappement). La ligne de message
+ * et le reste de l'écran, sous la grille, sont effacés à chaque image. <br>
+ * Une instance n'est pas thread-safe.
+ *
+ * @author Guillaume Chanson
+ * @version 1.0
+ * @see SudotrisIHM
+ * @since 1.8
+ */
+public class ConsoleRenderer {
+    /**
+     * Propriété système forçant (<code>true</code>) ou désactivant (<code>false</code>) le mode ANSI.
+     */
+    public static final String ANSI_PROPERTY = "sudotris.ansi";
+
+    private static final String ESC = "\u001B[";
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final PrintStream out;
+    private final boolean ansi;
+    private final StringBuilder frame = new StringBuilder(1024);
+
+    /**
+     * Cases de l'image précédente (<code>null</code> avant la première image, ou après <code>reset</code>).
+     */
+    private byte[] previous;
+
+    /**
+     * Crée un rendu sur le flux donné.
+     *
+     * @param out  le flux de sortie
+     * @param ansi <code>vrai</code> pour ne redessiner que les cases modifiées (terminal ANSI); <br>
+     *             <code>faux</code> pour redessiner toute la grille à chaque image
+     */
+    public ConsoleRenderer(PrintStream out, boolean ansi) {
+        this.out = out;
+        this.ansi = ansi;
+    }
+
+    /**
+     * Indique si la console courante accepte les séquences ANSI : propriété système <code>sudotris.ansi</code> si
+     * elle est définie; sinon, console interactive et terminal connu.
+     *
+     * @return <code>vrai</code> si le mode ANSI est à utiliser; <br>
+     * <code>faux</code> sinon
+     */
+    public static boolean detectAnsi() {
+        final String property = System.getProperty(ANSI_PROPERTY);
+        if (property != null) {
+            return Boolean.parseBoolean(property);
+        }
+        final String term = System.getenv("TERM");
+        return System.console() != null && term != null && !"dumb".equals(term);
+    }
+
+    /**
+     * Indique si le rendu utilise les séquences ANSI.
+     *
+     * @return <code>vrai</code> en mode ANSI; <br>
+     * <code>faux</code> sinon
+     */
+    public boolean isAnsi() {
+        return ansi;
+    }
+
+    /**
+     * Oublie l'image précédente : la prochaine image redessinera toute la grille. <br>
+     * À appeler lorsque l'écran a été modifié hors du rendu (nouvelle partie...).
+     */
+    public void reset() {
+        previous = null;
+    }
+
+    /**
+     * Dessine la matrice de jeu donnée, précédée (en mode texte) ou suivie (en mode ANSI) du message donné.
+     *
+     * @param matrix  la matrice de jeu à afficher
+     * @param message le message à afficher, ou <code>null</code>
+     */
+    public void render(Element[][] matrix, String message) {
+        final int side = matrix.length;
+        final int order = (int) Math.round(Math.sqrt(side));
+
+        frame.setLength(0);
+        if (!ansi) {
+            if (message != null) {
+                frame.append(message).append(LINE_SEPARATOR);
+            }
+            appendBoard(matrix, side, order);
+        } else if (previous == null || previous.length != side * side) {
+            previous = new byte[side * side];
+            frame.append(ESC).append('H').append(ESC).append("2J");
+            appendBoard(matrix, side, order);
+            remember(matrix, side);
+            appendMessage(message);
+        } else {
+            appendChanges(matrix, side, order);
+            frame.append(ESC).append(statusRow(side, order)).append(";1H").append(ESC).append('J');
+            appendMessage(message);
+        }
+
+        out.append(frame);
+        out.flush();
+    }
+
+    /**
+     * Ajoute à l'image la grille complète : en-tête des colonnes, lignes et séparateurs des blocs.
+     */
+    private void appendBoard(Element[][] matrix, int side, int order) {
+        final int labelWidth = side > 9 ? 2 : 1;
+        final int cellWidth = side > 9 ? 3 : 2;
+
+        pad(labelWidth + 3);
+        for (int j = 0; j < side; j++) {
+            if (j % order == 0 && j > 0) {
+                frame.append("  ");
+            }
+            appendPadded(j + 1, cellWidth - 1).append(' ');
+        }
+        frame.append(LINE_SEPARATOR);
+
+        for (int i = 0; i < side; i++) {
+            if (i % order == 0) {
+                appendSeparator(side, order, labelWidth, cellWidth);
+            }
+            appendPadded(i + 1, labelWidth).append(" | ");
+            for (int j = 0; j < side; j++) {
+                if (j % order == 0 && j > 0) {
+                    frame.append("| ");
+                }
+                appendCell(matrix[i][j], cellWidth);
+            }
+            frame.append('|').append(LINE_SEPARATOR);
+        }
+        appendSeparator(side, order, labelWidth, cellWidth);
+    }
+
+    private void appendSeparator(int side, int order, int labelWidth, int cellWidth) {
+        pad(labelWidth + 2);
+        for (int k = side * cellWidth + (order - 1) * 2 + 1; k > 0; k--) {
+            frame.append('-');
+        }
+        frame.append(' ').append(LINE_SEPARATOR);
+    }
+
+    /**
+     * Ajoute à l'image, pour chaque case modifiée depuis l'image précédente, le déplacement du curseur sur la case
+     * puis son contenu.
+     */
+    private void appendChanges(Element[][] matrix, int side, int order) {
+        final int labelWidth = side > 9 ? 2 : 1;
+        final int cellWidth = side > 9 ? 3 : 2;
+
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                final byte number = number(matrix[i][j]);
+                if (previous[i * side + j] == number) {
+                    continue;
+                }
+                previous[i * side + j] = number;
+
+                // Lignes et colonnes du terminal numérotées à partir de 1
+                final int row = 3 + i + i / order;
+                final int column = labelWidth + 4 + j * cellWidth + (j / order) * 2;
+                frame.append(ESC).append(row).append(';').append(column).append('H');
+                appendCell(matrix[i][j], cellWidth);
+            }
+        }
+    }
+
+    private void appendCell(Element element, int cellWidth) {
+        if (element.isEmpty()) {
+            pad(cellWidth);
+        } else {
+            appendPadded(element.getNumber(), cellWidth - 1).append(' ');
+        }
+    }
+
+    private void appendMessage(String message) {
+        if (message != null) {
+            frame.append(message).append(LINE_SEPARATOR);
+        }
+    }
+
+    private void remember(Element[][] matrix, int side) {
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                previous[i * side + j] = number(matrix[i][j]);
+            }
+        }
+    }
+
+    private static byte number(Element element) {
+        return element.isEmpty() ? 0 : (byte) element.getNumber();
+    }
+
+    /**
+     * Renvoie la ligne du terminal qui suit la grille (en-tête, lignes de la grille et séparateurs des blocs).
+     */
+    private static int statusRow(int side, int order) {
+        return side + order + 3;
+    }
+
+    private StringBuilder appendPadded(int value, int width) {
+        pad(width - (value >= 10 ? 2 : 1));
+        return frame.append(value);
+    }
+
+    private void pad(int count) {
+        for (int k = 0; k < count; k++) {
+            frame.append(' ');
+        }
+    }
+}
@@ -3,7 +3,7 @@ package guillaume.sudotris.view;
 import guillaume.sudotris.metier.Difficulte;
 import guillaume.sudotris.metier.Sudotris;
 import guillaume.sudotris.metier.element.Element;
-import guillaume.sudotris.metier.element.NotEmptyElement;
+import guillaume.sudotris.metier.grid.Grid;
 
 import java.util.Scanner;
 
@@ -17,18 +17,24 @@ import java.util.Scanner;
 public class SudotrisIHM {
     private final Scanner scanner;
     private final Sudotris sudotris;
+    private final ConsoleRenderer renderer;
 
     /**
      * Crée l'IHM du jeu de Sudotris.
+     * Le rendu ne redessine que les cases modifiées si la console accepte les séquences ANSI.
+     *
+     * @see ConsoleRenderer#detectAnsi()
      */
     public SudotrisIHM() {
         scanner = new Scanner(System.in);
         sudotris = new Sudotris();
+        renderer = new ConsoleRenderer(System.out, ConsoleRenderer.detectAnsi());
         System.out.println(" Bienvenue dans mon jeu de SudoTrisGame ");
     }
 
     /**
-     * Initialise le jeu de Sudotris : gère la création du jeu pour une grille de niveau à choisir.
+     * Initialise le jeu de Sudotris : gère la création du jeu pour une grille de niveau à choisir. <br>
+     * La grille est affichée sans attendre sa résolution, qui se poursuit en tâche de fond.
      */
     public void initializeGame() {
         System.out.print("Pour commencer, choisis la difficulté de jeu (1=easy, 2=moyen, 3=hard) : ");
@@ -36,17 +42,18 @@ public class SudotrisIHM {
         final int difficulte = scanner.nextInt();
         switch (difficulte) {
             case 2:
-                sudotris.init(Difficulte.MEDIUM);
+                sudotris.init(Difficulte.MEDIUM, Grid.getSharedExecutor());
                 break;
             case 3:
-                sudotris.init(Difficulte.HARD);
+                sudotris.init(Difficulte.HARD, Grid.getSharedExecutor());
                 break;
             default:
-                sudotris.init(Difficulte.EASY);
+                sudotris.init(Difficulte.EASY, Grid.getSharedExecutor());
                 break;
         }
 
         System.out.println("Game's ready, let's play !");
+        renderer.reset();
     }
 
     /**
@@ -66,19 +73,18 @@ public class SudotrisIHM {
      * La boucle de jeu. Appelée par SudotrisIHM#start().
      */
     public void play() {
+        String message = null;
         while (!sudotris.isFinished()) {
-            renderMatrix(sudotris.getDrawableGrid());
+            renderMatrix(sudotris.getDrawableGrid(), message);
 
             // Le joueur tente sa chance
             // true => réussi
             final boolean elementCorrect = sudotris.placeElement(askForNumber());
 
-            if (elementCorrect) {
-                System.out.println("Bien joué !");
-            } else {
-                System.out.println("Wrong location");
-            }
+            // Affiché avec la prochaine image
+            message = elementCorrect ? "Bien joué !" : "Wrong location";
         }
+        renderMatrix(sudotris.getDrawableGrid(), message);
 
         // Gagné !
         System.out.println(" ---------------- ");
@@ -105,29 +111,18 @@ public class SudotrisIHM {
      * @param matrix la matrice de jeu à afficher
      */
     protected void renderMatrix(Element[][] matrix) {
-        System.out.println("    1 2 3   4 5 6   7 8 9 ");
-
-        for (byte i = 0; i < matrix.length; i++) {
-            if (i % 3 == 0) {
-                System.out.println("   ----------------------- ");
-            }
-
-            System.out.print((i + 1) + " | ");
-
-            for (byte j = 0; j < matrix[i].length; j++) {
-                if (j % 3 == 0 && j > 0) {
-                    System.out.print("| ");
-                }
-                if (matrix[i][j].isEmpty()) {
-                    System.out.print("  ");
-                } else {
-                    System.out.print(matrix[i][j].getNumber() + " ");
-                }
-            }
-            System.out.println("|");
-        }
+        renderMatrix(matrix, null);
+    }
 
-        System.out.println("   ----------------------- ");
+    /**
+     * Gère le rendu en console de la grille de jeu, accompagnée du résultat du coup précédent.
+     *
+     * @param matrix  la matrice de jeu à afficher
+     * @param message le message à afficher avec la grille, ou <code>null</code>
+     * @see ConsoleRenderer#render(Element[][], String)
+     */
+    protected void renderMatrix(Element[][] matrix, String message) {
+        renderer.render(matrix, message);
     }
 
     /**
@@ -145,6 +140,6 @@ public class SudotrisIHM {
         final byte line = (byte) (Byte.valueOf(input[0]) - 1);
         final byte column = (byte) (Byte.valueOf(input[1]) - 1);
 
-        return new NotEmptyElement(line, column, nbToPlace);
+        return Element.of(line, column, nbToPlace);
     }
 }
\ No newline at end of file